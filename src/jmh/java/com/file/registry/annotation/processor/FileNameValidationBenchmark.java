@@ -0,0 +1,66 @@
+package com.file.registry.annotation.processor;
+
+import com.file.registry.index.FileKey;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the single-pass {@link FileKey} parser with the regular expression and split-based
+ * parsing it replaced. Run with {@code -prof gc} to compare allocation per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileNameValidationBenchmark {
+
+    private static final String XML_EXTENSION = ".xml";
+    private static final String FILE_NAME_PATTERN = "^[a-zA-Z0-9]+_[a-zA-Z0-9]+_\\d{4}-\\d{2}-\\d{2}\\.xml$";
+
+    @Param({"acme_invoice_2025-12-16.xml", "acme_invoice_16.12.2025.xml", "acme-invoice-2025-12-16.json"})
+    private String fileName;
+
+    @Benchmark
+    public boolean isValidFileName() {
+        return FileNameValidationProcessor.isValidFileName(fileName);
+    }
+
+    @Benchmark
+    public boolean regexMatches() {
+        return fileName.matches(FILE_NAME_PATTERN);
+    }
+
+    @Benchmark
+    public FileKey parse() {
+        return FileKey.parse(fileName, XML_EXTENSION);
+    }
+
+    @Benchmark
+    public FileKey splitAndParseDate() {
+        if (!fileName.endsWith(XML_EXTENSION)) {
+            return null;
+        }
+        String[] parts = fileName.substring(0, fileName.length() - XML_EXTENSION.length()).split("_");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            return new FileKey(parts[0], parts[1], LocalDate.parse(parts[2]));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
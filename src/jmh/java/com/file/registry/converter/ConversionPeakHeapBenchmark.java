@@ -0,0 +1,148 @@
+package com.file.registry.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Peak heap of converting one document of {@code megabytes} MB, from 1MB to 1GB. The XML is
+ * generated while it is read and the JSON is discarded, so the converter is the only consumer of
+ * heap that grows with the document. Each conversion starts after a full GC with the peak usage of
+ * the heap pools reset, and reports their summed peak as {@code peakHeapMegabytes}. The young
+ * generation fills up before it is collected, so the figure follows the heap sizing rather than the
+ * live data; what matters is that it stays flat as documents grow. The fork runs with a heap far
+ * smaller than the largest document, so an unbounded converter fails outright.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+public class ConversionPeakHeapBenchmark {
+
+    private static final long MEGABYTE = 1024 * 1024;
+
+    @Param({"1", "16", "256", "1024"})
+    private int megabytes;
+
+    private StreamingXmlJsonConverter converter;
+
+    @Setup
+    public void setUp() {
+        converter = new StreamingXmlJsonConverter(new XmlMapper(),
+                new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT));
+    }
+
+    @Benchmark
+    public void convert(PeakHeap peakHeap) throws IOException {
+        converter.convert(new GeneratedXml(megabytes * MEGABYTE), OutputStream.nullOutputStream(), true);
+    }
+
+    /**
+     * Summed peak usage of the heap pools during one conversion.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PeakHeap {
+
+        private final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+
+        public double peakHeapMegabytes;
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            System.gc();
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        }
+
+        @TearDown(Level.Invocation)
+        public void record() {
+            long peak = 0;
+            for (MemoryPoolMXBean pool : heapPools) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+            peakHeapMegabytes = (double) peak / MEGABYTE;
+        }
+    }
+
+    /**
+     * An XML document of at least {@code size} bytes made of order lines, produced as it is read.
+     */
+    private static final class GeneratedXml extends InputStream {
+
+        private static final byte[] HEAD = "<root>".getBytes(StandardCharsets.UTF_8);
+        private static final byte[] LINE = "<line><sku>S1024</sku><quantity>3</quantity><amount>12.50</amount></line>"
+                .getBytes(StandardCharsets.UTF_8);
+        private static final byte[] TAIL = "</root>".getBytes(StandardCharsets.UTF_8);
+
+        private long remainingLines;
+        private byte[] chunk = HEAD;
+        private int offset;
+
+        private GeneratedXml(long size) {
+            this.remainingLines = Math.max(1, size / LINE.length);
+        }
+
+        @Override
+        public int read() {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            int read = 0;
+            while (read < len && chunk != null) {
+                int count = Math.min(len - read, chunk.length - offset);
+                System.arraycopy(chunk, offset, buffer, off + read, count);
+                read += count;
+                offset += count;
+                if (offset == chunk.length) {
+                    nextChunk();
+                }
+            }
+            return read == 0 ? -1 : read;
+        }
+
+        private void nextChunk() {
+            offset = 0;
+            if (chunk == TAIL) {
+                chunk = null;
+            } else if (remainingLines > 0) {
+                remainingLines--;
+                chunk = LINE;
+            } else {
+                chunk = TAIL;
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.file.registry.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * XML to JSON conversion across document sizes and shapes. {@code elements} is the number of leaf
+ * elements; the output is discarded so only parsing and generation are measured. Conversion is
+ * compared with and without a {@link ConversionPlan} typing the numbers and arrays of the shapes,
+ * and with a {@code readTree} round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamingXmlJsonConverterBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int elements;
+
+    @Param({"FLAT", "NESTED", "REPEATED", "LINES"})
+    private Shape shape;
+
+    @Param({"true", "false"})
+    private boolean pretty;
+
+    private StreamingXmlJsonConverter converter;
+    private XmlMapper xmlMapper;
+    private ObjectMapper jsonMapper;
+    private ConversionPlan plan;
+    private byte[] xml;
+
+    @Setup
+    public void setUp() {
+        xmlMapper = new XmlMapper();
+        jsonMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        converter = new StreamingXmlJsonConverter(xmlMapper, jsonMapper);
+        plan = ConversionPlan.of(List.of("id", "amount", "quantity"), List.of(), List.of("item", "line"));
+        xml = shape.render(elements).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void convert() throws IOException {
+        converter.convert(new ByteArrayInputStream(xml), OutputStream.nullOutputStream(), pretty);
+    }
+
+    @Benchmark
+    public void convertWithPlan() throws IOException {
+        converter.convert(new ByteArrayInputStream(xml), OutputStream.nullOutputStream(), pretty, plan);
+    }
+
+    @Benchmark
+    public void readTree() throws IOException {
+        ObjectWriter writer = pretty ? jsonMapper.writerWithDefaultPrettyPrinter() : jsonMapper.writer()
+                .without(SerializationFeature.INDENT_OUTPUT);
+        writer.writeValue(OutputStream.nullOutputStream(), xmlMapper.readTree(xml));
+    }
+
+    public enum Shape {
+
+        /** Distinct sibling fields under the root. */
+        FLAT {
+            @Override
+            void renderElements(StringBuilder xml, int elements) {
+                for (int i = 0; i < elements; i++) {
+                    xml.append("<field").append(i).append('>').append("value").append(i)
+                            .append("</field").append(i).append('>');
+                }
+            }
+        },
+
+        /** Records of five fields each, nested two levels deep. */
+        NESTED {
+            @Override
+            void renderElements(StringBuilder xml, int elements) {
+                for (int i = 0; i < Math.max(1, elements / 5); i++) {
+                    xml.append("<record").append(i).append("><header><id>").append(i)
+                            .append("</id><type>order</type></header><body><amount>").append(i)
+                            .append(".50</amount><currency>EUR</currency><note>n</note></body></record")
+                            .append(i).append('>');
+                }
+            }
+        },
+
+        /** Repeated siblings of the same name, converted into a JSON array. */
+        REPEATED {
+            @Override
+            void renderElements(StringBuilder xml, int elements) {
+                for (int i = 0; i < elements; i++) {
+                    xml.append("<item>").append(i).append("</item>");
+                }
+            }
+        },
+
+        /** Repeated records of three fields, such as the lines of an order. */
+        LINES {
+            @Override
+            void renderElements(StringBuilder xml, int elements) {
+                for (int i = 0; i < Math.max(1, elements / 3); i++) {
+                    xml.append("<line><sku>S").append(i).append("</sku><quantity>").append(i % 10)
+                            .append("</quantity><amount>").append(i).append(".50</amount></line>");
+                }
+            }
+        };
+
+        abstract void renderElements(StringBuilder xml, int elements);
+
+        String render(int elements) {
+            StringBuilder xml = new StringBuilder("<root>");
+            renderElements(xml, elements);
+            return xml.append("</root>").toString();
+        }
+    }
+}
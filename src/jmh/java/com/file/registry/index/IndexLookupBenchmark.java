@@ -0,0 +1,93 @@
+package com.file.registry.index;
+
+import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.CUSTOMER_INDEX_NAME;
+
+import com.file.registry.properties.StorageProperties;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Listing all files of one customer from a storage of {@code entries} files, spread over
+ * {@value #CUSTOMERS} customers: by listing the symlink directory, and from {@link FileIndex}.
+ * Also measures rebuilding the index from the storage directory.
+ *
+ * <p>Setting up a million entries takes a few minutes; run it with {@code -p entries=1000000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndexLookupBenchmark {
+
+    private static final int CUSTOMERS = 100;
+    private static final String CUSTOMER = "customer7";
+
+    @Param({"10000", "100000"})
+    private int entries;
+
+    private Path storagePath;
+    private Path customerDirectory;
+    private FileIndex fileIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storagePath = Files.createTempDirectory("index-benchmark");
+        for (int i = 0; i < entries; i++) {
+            String customer = "customer" + (i % CUSTOMERS);
+            String fileName = String.format("%s_type%d_2025-%02d-%02d.json",
+                    customer, i / CUSTOMERS, i % 12 + 1, i % 28 + 1);
+            Path file = Files.createFile(storagePath.resolve(fileName));
+            Path directory = Files.createDirectories(storagePath.resolve(CUSTOMER_INDEX_NAME).resolve(customer));
+            Files.createSymbolicLink(directory.resolve(fileName), file);
+        }
+        customerDirectory = storagePath.resolve(CUSTOMER_INDEX_NAME).resolve(CUSTOMER);
+        fileIndex = new FileIndex(new IndexJournal(new StorageProperties(storagePath.toString())));
+        fileIndex.rebuild(storagePath);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(storagePath);
+    }
+
+    @Benchmark
+    public List<String> directoryListing() throws IOException {
+        try (Stream<Path> files = Files.list(customerDirectory)) {
+            return files.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @Benchmark
+    public List<String> indexLookup() {
+        return fileIndex.findByCustomer(CUSTOMER);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public int rebuild() {
+        fileIndex.rebuild(storagePath);
+        return fileIndex.size();
+    }
+}
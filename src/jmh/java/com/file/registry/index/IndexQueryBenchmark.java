@@ -0,0 +1,100 @@
+package com.file.registry.index;
+
+import com.file.registry.properties.StorageProperties;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Multi-criteria queries against a {@link FileIndex} of {@code entries} random names spread over
+ * {@value #CUSTOMERS} customers, {@value #TYPES} types and two years of dates. The first query is
+ * also compared with the client-side alternative of listing one customer and filtering it.
+ *
+ * <p>Files are only added to the index, not written to storage, so a million entries set up in
+ * seconds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class IndexQueryBenchmark {
+
+    private static final int CUSTOMERS = 100;
+    private static final int TYPES = 50;
+    private static final int DAYS = 730;
+    private static final int PAGE_SIZE = 1000;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final FileQuery CUSTOMER_TYPE_MONTH =
+            FileQuery.of("customer7", "type3", LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31));
+    private static final FileQuery CUSTOMER_PREFIX_DAY =
+            FileQuery.of("customer1*", null, LocalDate.of(2025, 3, 14), LocalDate.of(2025, 3, 14));
+    private static final FileQuery TYPE_YEAR =
+            FileQuery.of(null, "type3", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31));
+
+    @Param({"100000", "1000000", "3000000"})
+    private int entries;
+
+    private Path storagePath;
+    private FileIndex fileIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storagePath = Files.createTempDirectory("query-benchmark");
+        StorageProperties properties = new StorageProperties(storagePath.toString());
+        properties.getIndex().setJournalSize(DataSize.ofMegabytes(256));
+        fileIndex = new FileIndex(new IndexJournal(properties));
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < entries; i++) {
+            fileIndex.add(String.format("customer%d_type%d_%s.json",
+                    random.nextInt(CUSTOMERS), random.nextInt(TYPES), FIRST_DAY.plusDays(random.nextInt(DAYS))));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(storagePath);
+    }
+
+    @Benchmark
+    public List<String> customerTypeMonth() {
+        return fileIndex.query(CUSTOMER_TYPE_MONTH, null).toList();
+    }
+
+    @Benchmark
+    public List<String> customerPrefixDay() {
+        return fileIndex.query(CUSTOMER_PREFIX_DAY, null).toList();
+    }
+
+    @Benchmark
+    public List<String> typeYearFirstPage() {
+        return fileIndex.query(TYPE_YEAR, null).limit(PAGE_SIZE).toList();
+    }
+
+    @Benchmark
+    public List<String> customerListingFiltered() {
+        return fileIndex.findByCustomer("customer7").stream()
+                .filter(CUSTOMER_TYPE_MONTH.matcher())
+                .toList();
+    }
+}
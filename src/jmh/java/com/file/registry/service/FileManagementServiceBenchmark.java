@@ -0,0 +1,153 @@
+package com.file.registry.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.file.registry.cache.DocumentCache;
+import com.file.registry.converter.StreamingXmlJsonConverter;
+import com.file.registry.dto.BatchUploadReport;
+import com.file.registry.history.ChangeLog;
+import com.file.registry.index.FileIndex;
+import com.file.registry.index.IndexJournal;
+import com.file.registry.metrics.FileOperationMetrics;
+import com.file.registry.properties.StorageProperties;
+import com.file.registry.storage.BlobStore;
+import com.file.registry.storage.ContentDigestStore;
+import com.file.registry.storage.FileLockManager;
+import com.file.registry.storage.IndexLinks;
+import com.file.registry.storage.StorageLayout;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * End-to-end write path: conversion, digest, atomic replace, index links and the in-memory
+ * index. {@code update} overwrites one file; the batch benchmarks store and delete
+ * {@value #BATCH_SIZE} files one by one or through {@code uploadBatch}. {@code writeBehind}
+ * compares synchronous index links with the write-behind queue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileManagementServiceBenchmark {
+
+    private static final int BATCH_SIZE = 32;
+
+    @Param({"PRETTY_JSON", "JSON", "GZIP_JSON"})
+    private StorageProperties.Format format;
+
+    @Param({"false", "true"})
+    private boolean writeBehind;
+
+    private Path storagePath;
+    private ExecutorService executor;
+    private IndexLinks indexLinks;
+    private FileManagementService service;
+    private MultipartFile document;
+    private List<MultipartFile> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storagePath = Files.createTempDirectory("service-benchmark");
+        StorageProperties storageProperties = new StorageProperties(storagePath.toString());
+        storageProperties.setFormat(format);
+        storageProperties.getIndex().setWriteBehind(writeBehind);
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        FileIndex fileIndex = new FileIndex(new IndexJournal(storageProperties));
+        StorageLayout storageLayout = new StorageLayout(storageProperties);
+        indexLinks = new IndexLinks(storageProperties, storageLayout, fileIndex);
+        indexLinks.start();
+        service = new FileManagementService(
+                storageProperties,
+                new StreamingXmlJsonConverter(new XmlMapper(),
+                        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)),
+                fileIndex,
+                executor,
+                new ContentDigestStore(),
+                storageLayout,
+                indexLinks,
+                new BlobStore(storageProperties),
+                new DocumentCache(storageProperties),
+                new ChangeLog(storageProperties, new ObjectMapper()),
+                new FileLockManager(),
+                new FileOperationMetrics(new SimpleMeterRegistry()));
+
+        document = multipartXml("acme_invoice_2025-01-01.xml");
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int day = 1; day <= BATCH_SIZE; day++) {
+            batch.add(multipartXml(String.format("acme_batch_2025-%02d-%02d.xml", day % 12 + 1, day % 28 + 1)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        indexLinks.close();
+        FileSystemUtils.deleteRecursively(storagePath);
+    }
+
+    @Benchmark
+    public Resource update() {
+        return service.update(document);
+    }
+
+    @Benchmark
+    public int uploadSequentially() {
+        for (MultipartFile file : batch) {
+            service.upload(file);
+        }
+        deleteBatch();
+        return batch.size();
+    }
+
+    @Benchmark
+    public int uploadBatch() {
+        BatchUploadReport report = service.uploadBatch(batch);
+        deleteBatch();
+        return report.succeeded();
+    }
+
+    private void deleteBatch() {
+        for (MultipartFile file : batch) {
+            service.delete(file.getOriginalFilename());
+        }
+    }
+
+    private static MultipartFile multipartXml(String fileName) {
+        StringBuilder xml = new StringBuilder("<invoice><customer><id>42</id><name>Acme</name></customer>");
+        for (int line = 0; line < 50; line++) {
+            xml.append("<line><sku>SKU-").append(line).append("</sku><quantity>").append(line)
+                    .append("</quantity><price>").append(line).append(".99</price></line>");
+        }
+        xml.append("</invoice>");
+        return new MockMultipartFile("file", fileName, "application/xml",
+                xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,152 @@
+package com.file.registry.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.file.registry.cache.DocumentCache;
+import com.file.registry.converter.StreamingXmlJsonConverter;
+import com.file.registry.history.ChangeLog;
+import com.file.registry.index.FileIndex;
+import com.file.registry.index.IndexJournal;
+import com.file.registry.metrics.FileOperationMetrics;
+import com.file.registry.properties.StorageProperties;
+import com.file.registry.storage.BlobStore;
+import com.file.registry.storage.ContentDigestStore;
+import com.file.registry.storage.FileLockManager;
+import com.file.registry.storage.IndexLinks;
+import com.file.registry.storage.StorageLayout;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * {@value #REQUESTS} concurrent requests served by {@value #WORKER_THREADS} platform threads, the
+ * size of Tomcat's default worker pool, or by one virtual thread each, as with
+ * {@code spring.threads.virtual.enabled}. A request uploads and deletes its own file;
+ * {@code blockingMillis} adds a sleep per request standing in for the round trips of a network
+ * file system. This measures the service on local disk, not HTTP latency percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestThreadingBenchmark {
+
+    private static final int REQUESTS = 1000;
+    private static final int WORKER_THREADS = 200;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    @Param({"0", "5"})
+    private long blockingMillis;
+
+    private Path storagePath;
+    private ExecutorService conversionExecutor;
+    private ExecutorService requestExecutor;
+    private FileManagementService service;
+    private List<MultipartFile> documents;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storagePath = Files.createTempDirectory("threading-benchmark");
+        StorageProperties storageProperties = new StorageProperties(storagePath.toString());
+        conversionExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        requestExecutor = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(WORKER_THREADS);
+        FileIndex fileIndex = new FileIndex(new IndexJournal(storageProperties));
+        StorageLayout storageLayout = new StorageLayout(storageProperties);
+        service = new FileManagementService(
+                storageProperties,
+                new StreamingXmlJsonConverter(new XmlMapper(),
+                        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)),
+                fileIndex,
+                conversionExecutor,
+                new ContentDigestStore(),
+                storageLayout,
+                new IndexLinks(storageProperties, storageLayout, fileIndex),
+                new BlobStore(storageProperties),
+                new DocumentCache(storageProperties),
+                new ChangeLog(storageProperties, new ObjectMapper()),
+                new FileLockManager(),
+                new FileOperationMetrics(new SimpleMeterRegistry()));
+
+        documents = new ArrayList<>(REQUESTS);
+        LocalDate date = LocalDate.of(2020, 1, 1);
+        for (int request = 0; request < REQUESTS; request++) {
+            documents.add(multipartXml("acme_invoice_" + date.plusDays(request) + ".xml"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        requestExecutor.shutdownNow();
+        conversionExecutor.shutdownNow();
+        FileSystemUtils.deleteRecursively(storagePath);
+    }
+
+    @Benchmark
+    public int concurrentRequests() throws InterruptedException, ExecutionException {
+        List<Future<?>> requests = new ArrayList<>(REQUESTS);
+        for (MultipartFile document : documents) {
+            requests.add(requestExecutor.submit(() -> handle(document)));
+        }
+        for (Future<?> request : requests) {
+            request.get();
+        }
+        return requests.size();
+    }
+
+    private void handle(MultipartFile document) {
+        if (blockingMillis > 0) {
+            try {
+                Thread.sleep(blockingMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        service.upload(document);
+        service.delete(document.getOriginalFilename());
+    }
+
+    private static MultipartFile multipartXml(String fileName) {
+        StringBuilder xml = new StringBuilder("<invoice><customer><id>42</id><name>Acme</name></customer>");
+        for (int line = 0; line < 50; line++) {
+            xml.append("<line><sku>SKU-").append(line).append("</sku><quantity>").append(line)
+                    .append("</quantity><price>").append(line).append(".99</price></line>");
+        }
+        xml.append("</invoice>");
+        return new MockMultipartFile("file", fileName, "application/xml",
+                xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,6 +1,9 @@
 package com.file.registry.annotation.processor;
 
+import static com.file.registry.constants.ApplicationConstants.XML_EXTENSION;
+
 import com.file.registry.annotation.ValidFileName;
+import com.file.registry.index.FileKey;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import java.util.Objects;
@@ -9,15 +12,16 @@ import org.springframework.web.multipart.MultipartFile;
 public class FileNameValidationProcessor
         implements ConstraintValidator<ValidFileName, MultipartFile> {
 
-    private static final String FILE_NAME_PATTERN =
-            "^[a-zA-Z0-9]+_[a-zA-Z0-9]+_\\d{4}-\\d{2}-\\d{2}\\.xml$";
-
     @Override
     public boolean isValid(MultipartFile file, ConstraintValidatorContext context) {
         if (file == null || file.isEmpty() || Objects.isNull(file.getOriginalFilename())) {
             return false;
         }
-        return file.getOriginalFilename().matches(FILE_NAME_PATTERN);
+        return isValidFileName(file.getOriginalFilename());
+    }
+
+    public static boolean isValidFileName(String fileName) {
+        return FileKey.isValid(fileName, XML_EXTENSION);
     }
 }
 
@@ -0,0 +1,169 @@
+package com.file.registry.cache;
+
+import com.file.registry.dto.StoredFile;
+import com.file.registry.properties.StorageProperties;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opt-in read cache of stored documents, bounded by the total size of the cached content.
+ *
+ * <p>Entries are kept in access order and the least recently used ones are evicted until a new
+ * entry fits the byte budget; documents larger than the per-entry limit are never cached. With
+ * {@code off-heap} enabled the content lives in direct buffers, so a large cache does not grow
+ * the heap the garbage collector has to trace.
+ *
+ * <p>Writers call {@link #invalidate(String)} after the file on disk has been replaced or
+ * deleted. Readers take a {@link #stamp()} before reading a file and pass it to
+ * {@link #put(StoredFile, byte[], long)}, which drops the entry if any invalidation happened in
+ * between, so a slow reader can never put back content that was already replaced.
+ */
+@Component
+public class DocumentCache {
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final boolean offHeap;
+    private final Map<String, StoredFile> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Lock lock = new ReentrantLock();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long cachedBytes;
+
+    public DocumentCache(StorageProperties storageProperties) {
+        StorageProperties.Cache cache = storageProperties.getCache();
+        this.enabled = cache.isEnabled();
+        this.maxBytes = cache.getMaxSize().toBytes();
+        this.maxEntryBytes = Math.min(cache.getMaxEntrySize().toBytes(), maxBytes);
+        this.offHeap = cache.isOffHeap();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns {@code true} if a document of the given size is small enough to be cached.
+     */
+    public boolean accepts(long length) {
+        return enabled && length <= maxEntryBytes;
+    }
+
+    public StoredFile get(String fileName) {
+        if (!enabled) {
+            return null;
+        }
+        StoredFile entry;
+        lock.lock();
+        try {
+            entry = entries.get(fileName);
+        } finally {
+            lock.unlock();
+        }
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Caches the content of a file read after {@code stamp} was taken and returns the file
+     * backed by the cached content, or the given file if the content was not cached.
+     */
+    public StoredFile put(StoredFile file, byte[] content, long stamp) {
+        if (!accepts(content.length)) {
+            return file;
+        }
+        ByteBuffer buffer = offHeap ? ByteBuffer.allocateDirect(content.length) : ByteBuffer.allocate(content.length);
+        buffer.put(content).flip();
+        StoredFile entry = file.withContent(buffer.asReadOnlyBuffer());
+
+        lock.lock();
+        try {
+            if (invalidations.get() != stamp) {
+                return entry;
+            }
+            StoredFile previous = entries.remove(file.fileName());
+            if (previous != null) {
+                cachedBytes -= previous.content().capacity();
+            }
+            evictUntilFits(content.length);
+            entries.put(file.fileName(), entry);
+            cachedBytes += content.length;
+        } finally {
+            lock.unlock();
+        }
+        return entry;
+    }
+
+    public void invalidate(String fileName) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            invalidations.incrementAndGet();
+            StoredFile previous = entries.remove(fileName);
+            if (previous != null) {
+                cachedBytes -= previous.content().capacity();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public long size() {
+        lock.lock();
+        try {
+            return cachedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int entryCount() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictUntilFits(long length) {
+        Iterator<StoredFile> eldest = entries.values().iterator();
+        while (cachedBytes + length > maxBytes && eldest.hasNext()) {
+            cachedBytes -= eldest.next().content().capacity();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+}
@@ -1,19 +1,30 @@
 package com.file.registry.config;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.file.registry.properties.StorageProperties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 @Configuration
 public class ApplicationConfiguration {
 
     @Bean
-    public ObjectMapper jsonObjectMapper() {
+    public ObjectMapper jsonObjectMapper(Environment environment) {
         ObjectMapper mapper = new ObjectMapper();
+        configureBufferRecycling(mapper.getFactory(), environment);
         mapper.registerModule(new JavaTimeModule());
         mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         mapper.enable(SerializationFeature.INDENT_OUTPUT);
@@ -22,10 +33,62 @@ public class ApplicationConfiguration {
     }
 
     @Bean
-    public XmlMapper xmlMapper() {
+    public XmlMapper xmlMapper(Environment environment) {
         XmlMapper xmlMapper = new XmlMapper();
+        configureBufferRecycling(xmlMapper.getFactory(), environment);
         xmlMapper.registerModule(new JavaTimeModule());
         xmlMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
         return xmlMapper;
     }
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor conversionExecutor(StorageProperties storageProperties, Environment environment) {
+        StorageProperties.Conversion conversion = storageProperties.getConversion();
+        return new ThreadPoolExecutor(
+                conversion.getParallelism(),
+                conversion.getParallelism(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(conversion.getQueueCapacity()),
+                threadFactory(environment, "conversion-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Runs asynchronous upload jobs. Unlike the conversion pool it never runs a task on the
+     * submitting thread: a full queue rejects the job, which the client sees as 429.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor uploadJobExecutor(StorageProperties storageProperties, Environment environment) {
+        StorageProperties.Jobs jobs = storageProperties.getJobs();
+        return new ThreadPoolExecutor(
+                jobs.getParallelism(),
+                jobs.getParallelism(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(jobs.getQueueCapacity()),
+                threadFactory(environment, "upload-job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Jackson recycles parser and generator buffers through a thread-local pool by default, which
+     * never hits when every request runs on a new virtual thread. With
+     * {@code spring.threads.virtual.enabled} the mappers share one bounded pool instead.
+     */
+    private static void configureBufferRecycling(JsonFactory factory, Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            factory.setRecyclerPool(JsonRecyclerPools.sharedBoundedPool());
+        }
+    }
+
+    /**
+     * Creates the workers of a bounded pool as virtual threads when Boot serves requests on them.
+     * The pool keeps its size and queue, so it still limits parallelism and applies back-pressure.
+     */
+    private static ThreadFactory threadFactory(Environment environment, String prefix) {
+        return Threading.VIRTUAL.isActive(environment)
+                ? Thread.ofVirtual().name(prefix, 0).factory()
+                : new CustomizableThreadFactory(prefix);
+    }
 }
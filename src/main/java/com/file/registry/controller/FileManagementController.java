@@ -3,14 +3,22 @@ package com.file.registry.controller;
 import static com.file.registry.constants.ApplicationConstants.CONTENT_DISPOSITION_TEMPLATE;
 
 import com.file.registry.annotation.ValidFileName;
+import com.file.registry.dto.BatchUploadReport;
+import com.file.registry.history.JsonPatches;
+import com.file.registry.index.FileQuery;
+import com.file.registry.metrics.FileOperationMetrics;
+import com.file.registry.service.FileExportService;
 import com.file.registry.service.FileManagementService;
+import com.file.registry.storage.SendfileLinks;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.constraints.NotBlank;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
@@ -22,11 +30,15 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/v1/file-management")
@@ -37,7 +49,23 @@ import org.springframework.web.multipart.MultipartFile;
 @RequiredArgsConstructor
 public class FileManagementController {
 
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+    private static final String CURSOR_DESCRIPTION = "Opaque cursor returned in X-Next-Cursor by the previous page";
+    private static final String LIMIT_DESCRIPTION =
+            "Maximum number of files per page (1-10000, default 1000 when paging)";
+    private static final String CUSTOMER_DESCRIPTION = "Customer name, or a prefix followed by *";
+    private static final String TYPE_DESCRIPTION = "File type, or a prefix followed by *";
+    private static final String FROM_DESCRIPTION = "First date of the range in ISO format: yyyy-MM-dd";
+    private static final String TO_DESCRIPTION = "Last date of the range in ISO format: yyyy-MM-dd";
+    private static final String FILE_NAME_DESCRIPTION =
+            "File name in the format <customerName>_<type>_<yyyy-MM-dd>.xml";
+    private static final String EXPORT_ZIP_MEDIA_TYPE = "application/zip";
+    private static final String EXPORT_ZIP_NAME = "export.zip";
+
     private final FileManagementService fileManagementService;
+    private final FileExportService fileExportService;
+    private final FileOperationMetrics fileOperationMetrics;
+    private final SendfileLinks sendfileLinks;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(
@@ -70,6 +98,58 @@ public class FileManagementController {
                 .body(result);
     }
 
+    @PostMapping(path = "/{fileName}", consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE})
+    @Operation(
+            summary = "Upload XML file from the request body",
+            description = """
+                    Uploads the request body as an XML file with the given name. Unlike a multipart
+                    upload, which the servlet container receives in full before it is processed, the
+                    body is converted to JSON and written to storage while it arrives, so large files
+                    are stored sooner and never held in memory or spooled to a temporary file.
+                    
+                    Throws an exception if a file with the same name already exists.
+                    """
+    )
+    @ApiResponse(responseCode = "201", description = "File successfully uploaded and processed")
+    @ApiResponse(responseCode = "400", description = "Invalid file name or invalid XML content")
+    @ApiResponse(responseCode = "409", description = "File with the same name already exists")
+    public ResponseEntity<Resource> uploadBody(
+            @Parameter(description = FILE_NAME_DESCRIPTION, example = "acme_report_2025-10-12.xml", required = true)
+            @PathVariable String fileName,
+            InputStream body
+    ) {
+        Resource result = fileManagementService.upload(fileName, body);
+        return ResponseEntity
+                .status(HttpStatus.CREATED)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        String.format(CONTENT_DISPOSITION_TEMPLATE, result.getFilename()))
+                .body(result);
+    }
+
+    @PostMapping(path = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(
+            summary = "Upload many XML files at once",
+            description = """
+                    Uploads several XML files in one request, each with the required name format:
+                    <customerName>_<type>_<yyyy-MM-dd>.xml
+                    
+                    Processing steps:
+                    1. Convert the files to JSON in parallel on a bounded worker pool.
+                    2. Save each converted file to the filesystem and index it under its file lock.
+                    
+                    Every file is processed independently; the response reports a status per file.
+                    """
+    )
+    @ApiResponse(responseCode = "200", description = "Batch processed, see per-file statuses")
+    public BatchUploadReport uploadBatch(
+            @Parameter(
+                    description = "XML files with required name format: <customerName>_<type>_<yyyy-MM-dd>.xml",
+                    required = true
+            )
+            @RequestPart("files") List<MultipartFile> files) {
+        return fileManagementService.uploadBatch(files);
+    }
+
     @Operation(
             summary = "Update existing XML file",
             description = """
@@ -102,6 +182,30 @@ public class FileManagementController {
                 .body(updatedFile);
     }
 
+    @Operation(
+            summary = "Update XML file from the request body",
+            description = """
+                    Replaces the file with the given name by the XML request body, converting it while
+                    it arrives like the body upload. If the file does not exist, a new one is created.
+                    """
+    )
+    @ApiResponse(responseCode = "202", description = "File successfully updated (or created if not existed)")
+    @ApiResponse(responseCode = "400", description = "Invalid file name or invalid XML content")
+    @ApiResponse(responseCode = "500", description = "Internal server error during file update")
+    @PutMapping(path = "/{fileName}", consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE})
+    public ResponseEntity<Resource> updateBody(
+            @Parameter(description = FILE_NAME_DESCRIPTION, example = "acme_report_2025-10-12.xml", required = true)
+            @PathVariable String fileName,
+            InputStream body
+    ) {
+        Resource updatedFile = fileManagementService.update(fileName, body);
+        return ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        String.format(CONTENT_DISPOSITION_TEMPLATE, updatedFile.getFilename()))
+                .body(updatedFile);
+    }
+
     @Operation(
             summary = "Get file content by name",
             description = """
@@ -113,10 +217,16 @@ public class FileManagementController {
                     2. Locate the corresponding JSON file on the filesystem.
                     3. Return the file as a downloadable response.
                     
+                    Supports conditional requests (If-None-Match, If-Modified-Since) using a strong
+                    content ETag, and byte Range requests. Files stored compressed are sent gzip-encoded
+                    when the client accepts it, and decompressed otherwise.
+                    
                     Throws an error if the file does not exist.
                     """
     )
     @ApiResponse(responseCode = "200", description = "File successfully retrieved")
+    @ApiResponse(responseCode = "206", description = "Requested byte range successfully retrieved")
+    @ApiResponse(responseCode = "304", description = "File not modified since the provided validators")
     @ApiResponse(responseCode = "400", description = "Invalid file name format")
     @ApiResponse(responseCode = "404", description = "File not found")
     @GetMapping("/{fileName}")
@@ -126,19 +236,48 @@ public class FileManagementController {
                     example = "acme_report_12.10.2025.xml",
                     required = true
             )
-            @PathVariable String fileName
+            @PathVariable String fileName,
+            ServletWebRequest webRequest
     ) {
-        Resource resource = fileManagementService.getByName(fileName);
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        String.format(CONTENT_DISPOSITION_TEMPLATE, resource.getFilename()))
-                .body(resource);
+        ResponseEntity<Resource> response = FileResponses.download(
+                () -> fileManagementService.getStoredFile(fileName), sendfileLinks, webRequest);
+        fileOperationMetrics.bytesSent(FileResponses.bodyLength(response));
+        return response;
+    }
+
+    @Operation(
+            summary = "Get changes between versions of a file",
+            description = """
+                    Returns the RFC 6902 JSON Patch that turns one version of the file into another,
+                    when the change history is enabled. Every update that changes the content adds a
+                    version; the first stored content is version 1.
+                    
+                    Both versions default to the current one, and from to the version before to, so
+                    without parameters the last change is returned. The versions compared are returned
+                    in the X-From-Version, X-To-Version and X-Current-Version headers.
+                    """
+    )
+    @ApiResponse(responseCode = "200", description = "Changes successfully retrieved")
+    @ApiResponse(responseCode = "400", description = "Unknown version, or a change between them was not recorded")
+    @ApiResponse(responseCode = "404", description = "File not found, or change history disabled")
+    @GetMapping(value = "/{fileName}/changes", produces = JsonPatches.MEDIA_TYPE)
+    public ResponseEntity<String> getChanges(
+            @Parameter(description = FILE_NAME_DESCRIPTION, example = "acme_report_2025-10-12.xml", required = true)
+            @PathVariable String fileName,
+            @Parameter(description = "Version to compare from, default the version before to")
+            @RequestParam(required = false) Integer from,
+            @Parameter(description = "Version to compare to, default the current version")
+            @RequestParam(required = false) Integer to
+    ) {
+        return FileResponses.changes(fileManagementService.getChanges(fileName, from, to));
     }
 
     @Operation(
             summary = "Get files by date",
             description = """
-                    Returns a list of file names for a given date.
+                    Returns a list of file names for a given date, sorted by name.
+                    Pass `limit` and/or `cursor` to page through large results; the cursor for the
+                    next page is returned in the X-Next-Cursor header.
                     
                     Processing steps:
                     1. Validate the date parameter (ISO format: yyyy-MM-dd).
@@ -150,22 +289,92 @@ public class FileManagementController {
     )
     @ApiResponse(responseCode = "200", description = "Files successfully retrieved")
     @ApiResponse(responseCode = "400", description = "Invalid date format (expected yyyy-MM-dd)")
-    @GetMapping("/find-by-date/{date}")
-    public List<String> getFilesByDate(
+    @GetMapping(value = "/find-by-date/{date}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<String>> getFilesByDate(
             @Parameter(
                     description = "Date in ISO format: yyyy-MM-dd",
                     example = "2025-12-09",
                     required = true
             )
-            @PathVariable LocalDate date
+            @PathVariable LocalDate date,
+            @Parameter(description = CURSOR_DESCRIPTION)
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = LIMIT_DESCRIPTION)
+            @RequestParam(required = false) Integer limit
     ) {
-        return fileManagementService.getFilesByDate(date);
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(fileManagementService.getFilesByDate(date));
+        }
+        return FileResponses.page(fileManagementService.getFilesByDate(date, cursor, pageSize(limit)));
+    }
+
+    @Operation(
+            summary = "Stream files by date",
+            description = """
+                    Streams the file names for a given date as newline-delimited JSON strings, in the
+                    same order as the paginated listing, optionally starting after a cursor.
+                    """
+    )
+    @ApiResponse(responseCode = "200", description = "Files successfully streamed")
+    @GetMapping(value = "/find-by-date/{date}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFilesByDate(
+            @PathVariable LocalDate date,
+            @Parameter(description = CURSOR_DESCRIPTION)
+            @RequestParam(required = false) String cursor
+    ) {
+        return FileResponses.ndjson(fileManagementService.streamFilesByDate(date, cursor));
+    }
+
+    @Operation(
+            summary = "Get files by date range",
+            description = """
+                    Returns one page of file names dated within an inclusive range, ordered by date and
+                    then by name. Only the dates inside the range are read, so a year-long range costs a
+                    single request. The cursor for the next page is returned in the X-Next-Cursor header.
+                    """
+    )
+    @ApiResponse(responseCode = "200", description = "Files successfully retrieved")
+    @ApiResponse(responseCode = "400", description = "Invalid date format, date range, cursor or limit")
+    @GetMapping(value = "/find-by-date", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<String>> getFilesByDateRange(
+            @Parameter(description = FROM_DESCRIPTION, example = "2025-01-01", required = true)
+            @RequestParam LocalDate from,
+            @Parameter(description = TO_DESCRIPTION, example = "2025-12-31", required = true)
+            @RequestParam LocalDate to,
+            @Parameter(description = CURSOR_DESCRIPTION)
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = LIMIT_DESCRIPTION)
+            @RequestParam(required = false) Integer limit
+    ) {
+        return FileResponses.page(fileManagementService.getFilesByDateRange(from, to, cursor, pageSize(limit)));
+    }
+
+    @Operation(
+            summary = "Stream files by date range",
+            description = """
+                    Streams the file names dated within an inclusive range as newline-delimited JSON
+                    strings, in the same order as the paginated listing, optionally starting after a cursor.
+                    """
+    )
+    @ApiResponse(responseCode = "200", description = "Files successfully streamed")
+    @GetMapping(value = "/find-by-date", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFilesByDateRange(
+            @Parameter(description = FROM_DESCRIPTION, required = true)
+            @RequestParam LocalDate from,
+            @Parameter(description = TO_DESCRIPTION, required = true)
+            @RequestParam LocalDate to,
+            @Parameter(description = CURSOR_DESCRIPTION)
+            @RequestParam(required = false) String cursor
+    ) {
+        return FileResponses.ndjson(fileManagementService.streamFilesByDateRange(from, to, cursor));
     }
 
     @Operation(
             summary = "Get files by customer",
             description = """
-                    Returns a list of file names for a given customer.
+                    Returns a list of file names for a given customer, sorted by name.
+                    Pass `limit` and/or `cursor` to page through large results; the cursor for the
+                    next page is returned in the X-Next-Cursor header.
                     
                     Processing steps:
                     1. Validate the customer name parameter.
@@ -177,22 +386,48 @@ public class FileManagementController {
     )
     @ApiResponse(responseCode = "200", description = "Files successfully retrieved")
     @ApiResponse(responseCode = "400", description = "Invalid customer name format")
-    @GetMapping("/find-by-customer/{customerName}")
-    public List<String> getFilesByCustomer(
+    @GetMapping(value = "/find-by-customer/{customerName}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<String>> getFilesByCustomer(
             @Parameter(
                     description = "Customer name (alphanumeric string)",
                     example = "acme",
                     required = true
             )
-            @PathVariable @NotBlank String customerName
+            @PathVariable @NotBlank String customerName,
+            @Parameter(description = CURSOR_DESCRIPTION)
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = LIMIT_DESCRIPTION)
+            @RequestParam(required = false) Integer limit
     ) {
-        return fileManagementService.getFilesByCustomer(customerName);
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(fileManagementService.getFilesByCustomer(customerName));
+        }
+        return FileResponses.page(fileManagementService.getFilesByCustomer(customerName, cursor, pageSize(limit)));
+    }
+
+    @Operation(
+            summary = "Stream files by customer",
+            description = """
+                    Streams the file names for a given customer as newline-delimited JSON strings, in the
+                    same order as the paginated listing, optionally starting after a cursor.
+                    """
+    )
+    @ApiResponse(responseCode = "200", description = "Files successfully streamed")
+    @GetMapping(value = "/find-by-customer/{customerName}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFilesByCustomer(
+            @PathVariable @NotBlank String customerName,
+            @Parameter(description = CURSOR_DESCRIPTION)
+            @RequestParam(required = false) String cursor
+    ) {
+        return FileResponses.ndjson(fileManagementService.streamFilesByCustomer(customerName, cursor));
     }
 
     @Operation(
             summary = "Get files by type",
             description = """
-                    Returns a list of file names for a given file type.
+                    Returns a list of file names for a given file type, sorted by name.
+                    Pass `limit` and/or `cursor` to page through large results; the cursor for the
+                    next page is returned in the X-Next-Cursor header.
                     
                     Processing steps:
                     1. Validate the type parameter.
@@ -204,16 +439,137 @@ public class FileManagementController {
     )
     @ApiResponse(responseCode = "200", description = "Files successfully retrieved")
     @ApiResponse(responseCode = "400", description = "Invalid type format")
-    @GetMapping("/find-by-type/{type}")
-    public List<String> getFilesByType(
+    @GetMapping(value = "/find-by-type/{type}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<String>> getFilesByType(
             @Parameter(
                     description = "File type (alphanumeric string)",
                     example = "report",
                     required = true
             )
-            @PathVariable @NotBlank String type
+            @PathVariable @NotBlank String type,
+            @Parameter(description = CURSOR_DESCRIPTION)
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = LIMIT_DESCRIPTION)
+            @RequestParam(required = false) Integer limit
     ) {
-        return fileManagementService.getFilesByType(type);
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(fileManagementService.getFilesByType(type));
+        }
+        return FileResponses.page(fileManagementService.getFilesByType(type, cursor, pageSize(limit)));
+    }
+
+    @Operation(
+            summary = "Stream files by type",
+            description = """
+                    Streams the file names for a given type as newline-delimited JSON strings, in the
+                    same order as the paginated listing, optionally starting after a cursor.
+                    """
+    )
+    @ApiResponse(responseCode = "200", description = "Files successfully streamed")
+    @GetMapping(value = "/find-by-type/{type}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFilesByType(
+            @PathVariable @NotBlank String type,
+            @Parameter(description = CURSOR_DESCRIPTION)
+            @RequestParam(required = false) String cursor
+    ) {
+        return FileResponses.ndjson(fileManagementService.streamFilesByType(type, cursor));
+    }
+
+    @Operation(
+            summary = "Query files by several criteria",
+            description = """
+                    Returns one page of file names matching all given criteria, sorted by name.
+                    A customer or type ending with `*` matches by prefix; `from` and `to` bound an
+                    inclusive date range and may be used alone. At least one criterion is required.
+                    The cursor for the next page is returned in the X-Next-Cursor header.
+                    
+                    The query is driven by the criterion with the fewest indexed files, and the other
+                    criteria are checked on each candidate name.
+                    """
+    )
+    @ApiResponse(responseCode = "200", description = "Files successfully retrieved")
+    @ApiResponse(responseCode = "400", description = "No criteria, invalid date range, cursor or limit")
+    @GetMapping(value = "/query", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<String>> query(
+            @Parameter(description = CUSTOMER_DESCRIPTION, example = "acme")
+            @RequestParam(required = false) String customer,
+            @Parameter(description = TYPE_DESCRIPTION, example = "invoice")
+            @RequestParam(required = false) String type,
+            @Parameter(description = FROM_DESCRIPTION, example = "2025-03-01")
+            @RequestParam(required = false) LocalDate from,
+            @Parameter(description = TO_DESCRIPTION, example = "2025-03-31")
+            @RequestParam(required = false) LocalDate to,
+            @Parameter(description = CURSOR_DESCRIPTION)
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = LIMIT_DESCRIPTION)
+            @RequestParam(required = false) Integer limit
+    ) {
+        FileQuery query = FileQuery.of(customer, type, from, to);
+        return FileResponses.page(fileManagementService.findFiles(query, cursor, pageSize(limit)));
+    }
+
+    @Operation(
+            summary = "Stream files matching several criteria",
+            description = """
+                    Streams the file names matching all given criteria as newline-delimited JSON strings,
+                    in the same order as the paginated query, optionally starting after a cursor.
+                    """
+    )
+    @ApiResponse(responseCode = "200", description = "Files successfully streamed")
+    @GetMapping(value = "/query", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamQuery(
+            @Parameter(description = CUSTOMER_DESCRIPTION)
+            @RequestParam(required = false) String customer,
+            @Parameter(description = TYPE_DESCRIPTION)
+            @RequestParam(required = false) String type,
+            @Parameter(description = FROM_DESCRIPTION)
+            @RequestParam(required = false) LocalDate from,
+            @Parameter(description = TO_DESCRIPTION)
+            @RequestParam(required = false) LocalDate to,
+            @Parameter(description = CURSOR_DESCRIPTION)
+            @RequestParam(required = false) String cursor
+    ) {
+        return FileResponses.ndjson(fileManagementService.streamFiles(FileQuery.of(customer, type, from, to), cursor));
+    }
+
+    @Operation(
+            summary = "Export files matching several criteria",
+            description = """
+                    Streams every file matching the query criteria in one response, so a client does
+                    not need one download per file. Criteria are the same as for the query endpoint.
+                    
+                    Returns a zip archive with a <name>.json entry per file by default, or one
+                    {"fileName": ..., "content": {...}} object per line when application/x-ndjson is
+                    requested. The response is written while the files are read, without buffering
+                    the result set in memory or on disk. Files deleted during the export are left out.
+                    """
+    )
+    @ApiResponse(responseCode = "200", description = "Files successfully exported")
+    @ApiResponse(responseCode = "400", description = "No criteria or invalid date range")
+    @GetMapping(value = "/export", produces = {EXPORT_ZIP_MEDIA_TYPE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> export(
+            @Parameter(description = CUSTOMER_DESCRIPTION, example = "acme")
+            @RequestParam(required = false) String customer,
+            @Parameter(description = TYPE_DESCRIPTION, example = "invoice")
+            @RequestParam(required = false) String type,
+            @Parameter(description = FROM_DESCRIPTION, example = "2025-03-01")
+            @RequestParam(required = false) LocalDate from,
+            @Parameter(description = TO_DESCRIPTION, example = "2025-03-31")
+            @RequestParam(required = false) LocalDate to,
+            @Parameter(hidden = true)
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        Stream<String> fileNames = fileExportService.matchingFiles(FileQuery.of(customer, type, from, to));
+        if (accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(output -> fileExportService.writeNdjson(fileNames, output));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(EXPORT_ZIP_MEDIA_TYPE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, String.format(CONTENT_DISPOSITION_TEMPLATE, EXPORT_ZIP_NAME))
+                .body(output -> fileExportService.writeZip(fileNames, output));
     }
 
     @Operation(
@@ -244,4 +600,8 @@ public class FileManagementController {
     ) {
         fileManagementService.delete(fileName);
     }
+
+    private static int pageSize(Integer limit) {
+        return limit == null ? DEFAULT_PAGE_SIZE : limit;
+    }
 }
@@ -0,0 +1,309 @@
+package com.file.registry.controller;
+
+import static com.file.registry.constants.ApplicationConstants.CONTENT_DISPOSITION_TEMPLATE;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.file.registry.dto.FileChanges;
+import com.file.registry.dto.FilePage;
+import com.file.registry.dto.StoredFile;
+import com.file.registry.exception.InternalErrorException;
+import com.file.registry.exception.NotFoundException;
+import com.file.registry.history.JsonPatches;
+import com.file.registry.storage.FileChannelResource;
+import com.file.registry.storage.GzipContent;
+import com.file.registry.storage.GzipDecodingResource;
+import com.file.registry.storage.SendfileLinks;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Builds download and listing responses for stored files.
+ *
+ * <p>Conditional requests are answered with {@code 304} from the stored ETag and modification
+ * time. The validators have to describe the bytes actually sent, while an update may replace the
+ * file at any time, so a file is read again if it was replaced since its validators were read.
+ * Where the container supports sendfile (Tomcat NIO does by default), it streams the file straight
+ * from the page cache to the socket, single byte ranges included. Sendfile reopens the path only
+ * after the handler has returned, so it is handed a path whose bytes never change: the
+ * content-addressed blob of a deduplicated file, or a {@link SendfileLinks} hard link to any other
+ * file. Otherwise the file is opened before its response is built and sent from that open channel
+ * as a {@link Resource}, and Spring MVC handles the {@code Range} header itself.
+ *
+ * <p>Compressed files are sent as stored with {@code Content-Encoding: gzip} to clients that
+ * accept it, and decompressed on the fly for all others. The two representations get different
+ * ETags, since a strong validator has to identify the exact bytes sent.
+ */
+@Slf4j
+@UtilityClass
+class FileResponses {
+
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+    private static final String BYTES_RANGE_UNIT = "bytes";
+    private static final String DECODED_ETAG_SUFFIX = "-identity";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String FROM_VERSION_HEADER = "X-From-Version";
+    private static final String TO_VERSION_HEADER = "X-To-Version";
+    private static final String CURRENT_VERSION_HEADER = "X-Current-Version";
+    private static final String CHANNEL_ATTRIBUTE_PREFIX = FileResponses.class.getName() + ".channel.";
+    private static final int NDJSON_FLUSH_INTERVAL = 1000;
+
+    /**
+     * Builds the download response of the file {@code files} reads, which is read again if the
+     * file is replaced before it could be opened.
+     */
+    static ResponseEntity<Resource> download(
+            Supplier<StoredFile> files,
+            SendfileLinks sendfileLinks,
+            ServletWebRequest webRequest) {
+        HttpServletRequest request = webRequest.getRequest();
+        boolean sendfile = supportsSendfile(request);
+        StoredFile file;
+        Resource stored;
+        do {
+            file = files.get();
+            boolean decoded = file.isCompressed() && !acceptsGzip(request);
+            stored = storedContent(file, sendfile && !decoded ? sendfileLinks : null);
+        } while (stored == null);
+
+        boolean passthrough = file.isCompressed() && acceptsGzip(request);
+        String etag = file.isCompressed() && !passthrough ? file.etag() + DECODED_ETAG_SUFFIX : file.etag();
+        if (file.isCompressed() && webRequest.getResponse() != null) {
+            webRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (webRequest.checkNotModified(etag, file.lastModified().toEpochMilli())) {
+            return null;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            // checkNotModified already wrote both validators to GET responses
+            headers.setETag(quote(etag));
+            headers.setLastModified(file.lastModified());
+        }
+        headers.set(HttpHeaders.ACCEPT_RANGES, BYTES_RANGE_UNIT);
+        headers.set(HttpHeaders.CONTENT_DISPOSITION,
+                String.format(CONTENT_DISPOSITION_TEMPLATE, file.fileName()));
+
+        if (file.isCompressed() && !passthrough) {
+            return ResponseEntity.ok().headers(headers)
+                    .body(new GzipDecodingResource(stored, file.decodedLength()));
+        }
+        if (passthrough) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, GzipContent.ENCODING);
+        }
+        if (!(stored instanceof FileSystemResource sendfilePath)) {
+            return ResponseEntity.ok().headers(headers).body(stored);
+        }
+
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpRange range = singleRange(request, file);
+        if (range == null) {
+            return sendfile(request, sendfilePath, headers, HttpStatus.OK, 0, file.length());
+        }
+
+        long start = range.getRangeStart(file.length());
+        long end = range.getRangeEnd(file.length());
+        if (start >= file.length()) {
+            headers.set(HttpHeaders.CONTENT_RANGE, BYTES_RANGE_UNIT + " */" + file.length());
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+        }
+        headers.set(HttpHeaders.CONTENT_RANGE,
+                BYTES_RANGE_UNIT + " " + start + "-" + end + "/" + file.length());
+        return sendfile(request, sendfilePath, headers, HttpStatus.PARTIAL_CONTENT, start, end + 1);
+    }
+
+    /**
+     * Returns the number of body bytes of a download response; a range served by Spring MVC
+     * is counted at the full file length.
+     */
+    static long bodyLength(ResponseEntity<Resource> response) {
+        if (response == null) {
+            return 0;
+        }
+        if (response.getHeaders().getContentLength() >= 0) {
+            return response.getHeaders().getContentLength();
+        }
+        try {
+            return response.getBody() == null ? 0 : response.getBody().contentLength();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    static ResponseEntity<List<String>> page(FilePage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.files());
+    }
+
+    /**
+     * Returns the patch as the body, already serialized since no message converter is registered
+     * for the JSON Patch media type, and the versions it spans as headers.
+     */
+    static ResponseEntity<String> changes(FileChanges changes) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(JsonPatches.MEDIA_TYPE))
+                .header(FROM_VERSION_HEADER, String.valueOf(changes.fromVersion()))
+                .header(TO_VERSION_HEADER, String.valueOf(changes.toVersion()))
+                .header(CURRENT_VERSION_HEADER, String.valueOf(changes.currentVersion()))
+                .body(changes.patch().toString());
+    }
+
+    /**
+     * Writes each file name as a JSON string on its own line, flushing every
+     * {@value #NDJSON_FLUSH_INTERVAL} lines so clients can start consuming early.
+     */
+    static ResponseEntity<StreamingResponseBody> ndjson(Stream<String> fileNames) {
+        StreamingResponseBody body = output -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            int lines = 0;
+            for (Iterator<String> iterator = fileNames.iterator(); iterator.hasNext(); ) {
+                writer.write('"');
+                writer.write(JsonStringEncoder.getInstance().quoteAsString(iterator.next()));
+                writer.write("\"\n");
+                if (++lines % NDJSON_FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private static ResponseEntity<Resource> sendfile(
+            HttpServletRequest request,
+            FileSystemResource path,
+            HttpHeaders headers,
+            HttpStatus status,
+            long start,
+            long end) {
+        request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, path.getFile().getAbsolutePath());
+        request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+        request.setAttribute(SENDFILE_END_ATTRIBUTE, end);
+        headers.setContentLength(end - start);
+        return ResponseEntity.status(status).headers(headers).build();
+    }
+
+    /**
+     * Returns the stored bytes of a file: the cached content, a path with the same bytes for
+     * sendfile to reopen if {@code sendfileLinks} is given, or the file opened now. Returns
+     * {@code null} if the file was replaced since it was read. An opened file is closed once the
+     * request completes.
+     */
+    private static Resource storedContent(StoredFile file, SendfileLinks sendfileLinks) {
+        if (file.isCached()) {
+            return file.toStoredResource();
+        }
+        if (sendfileLinks != null && file.blob() != null) {
+            return new FileSystemResource(file.blob());
+        }
+        if (sendfileLinks != null) {
+            try {
+                Path link = sendfileLinks.link(file);
+                return link == null ? null : new FileSystemResource(link);
+            } catch (NoSuchFileException e) {
+                throw new NotFoundException("File not found: " + file.fileName());
+            } catch (IOException e) {
+                log.debug("Sending file without sendfile, it could not be linked: {}", file.fileName(), e);
+            }
+        }
+        FileChannel channel;
+        try {
+            channel = file.open();
+        } catch (NoSuchFileException e) {
+            throw new NotFoundException("File not found: " + file.fileName());
+        } catch (IOException e) {
+            throw new InternalErrorException("Failed to read file: " + file.fileName(), e);
+        }
+        if (channel == null) {
+            return null;
+        }
+        RequestContextHolder.currentRequestAttributes().registerDestructionCallback(
+                CHANNEL_ATTRIBUTE_PREFIX + System.identityHashCode(channel), () -> close(channel),
+                RequestAttributes.SCOPE_REQUEST);
+        return new FileChannelResource(channel, file.length(), file.fileName());
+    }
+
+    private static void close(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close downloaded file", e);
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        Enumeration<String> values = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (values.hasMoreElements()) {
+            for (String coding : values.nextElement().split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (GzipContent.ENCODING.equalsIgnoreCase(parts[0].trim())
+                        && !(parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean supportsSendfile(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod())
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE));
+    }
+
+    /**
+     * Returns the requested range, or {@code null} when the whole file has to be sent: no or
+     * multiple ranges, or an {@code If-Range} validator that no longer matches.
+     */
+    private static HttpRange singleRange(HttpServletRequest request, StoredFile file) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(quote(file.etag()))) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String quote(String etag) {
+        return "\"" + etag + "\"";
+    }
+}
@@ -0,0 +1,94 @@
+package com.file.registry.controller;
+
+import com.file.registry.annotation.ValidFileName;
+import com.file.registry.dto.UploadJob;
+import com.file.registry.service.UploadJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+@RestController
+@RequestMapping("/v1/file-management/jobs")
+@Tag(
+        name = "Upload Job Resource",
+        description = "Asynchronous uploads and updates of customer XML files, with status polling."
+)
+@RequiredArgsConstructor
+public class UploadJobController {
+
+    private static final String FILE_DESCRIPTION =
+            "XML file with required name format: <customerName>_<type>_<yyyy-MM-dd>.xml";
+
+    private final UploadJobService uploadJobService;
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(
+            summary = "Upload XML file asynchronously",
+            description = """
+                    Stores the raw XML file and queues its conversion, returning a job immediately.
+                    Poll the URL in the Location header for the result; a failed job reports the
+                    status the synchronous upload would have answered with (e.g. 409 for an
+                    existing file).
+                    """
+    )
+    @ApiResponse(responseCode = "202", description = "Upload accepted and queued")
+    @ApiResponse(responseCode = "400", description = "Invalid file name format")
+    @ApiResponse(responseCode = "429", description = "Upload queue is full, retry later")
+    public ResponseEntity<UploadJob> upload(
+            @Parameter(description = FILE_DESCRIPTION, required = true)
+            @RequestPart("file") @ValidFileName MultipartFile file) {
+        return accepted(uploadJobService.submit(file, UploadJob.Type.UPLOAD));
+    }
+
+    @PutMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(
+            summary = "Update XML file asynchronously",
+            description = """
+                    Stores the raw XML file and queues the replacement of the stored file, returning a
+                    job immediately. Poll the URL in the Location header for the result.
+                    """
+    )
+    @ApiResponse(responseCode = "202", description = "Update accepted and queued")
+    @ApiResponse(responseCode = "400", description = "Invalid file name format")
+    @ApiResponse(responseCode = "429", description = "Upload queue is full, retry later")
+    public ResponseEntity<UploadJob> update(
+            @Parameter(description = FILE_DESCRIPTION, required = true)
+            @RequestPart("file") @ValidFileName MultipartFile file) {
+        return accepted(uploadJobService.submit(file, UploadJob.Type.UPDATE));
+    }
+
+    @GetMapping("/{jobId}")
+    @Operation(
+            summary = "Get upload job status",
+            description = """
+                    Returns the state of an asynchronous upload or update: QUEUED, RUNNING, SUCCEEDED
+                    or FAILED. Finished jobs are kept for a limited number of later jobs.
+                    """
+    )
+    @ApiResponse(responseCode = "200", description = "Job found")
+    @ApiResponse(responseCode = "404", description = "Unknown or expired job")
+    public UploadJob getJob(@PathVariable String jobId) {
+        return uploadJobService.getJob(jobId);
+    }
+
+    private static ResponseEntity<UploadJob> accepted(UploadJob job) {
+        return ResponseEntity
+                .accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequestUri().path("/{jobId}")
+                        .buildAndExpand(job.id()).toUri())
+                .body(job);
+    }
+}
@@ -0,0 +1,88 @@
+package com.file.registry.converter;
+
+import com.file.registry.storage.ContentDigestStore;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * How the elements of one document type are typed during conversion, compiled once into a lookup
+ * by element name. Elements are matched by name at any depth.
+ *
+ * <p>Without a plan every text value becomes a string, and an element becomes an array only when
+ * it is repeated. A plan writes the text of number and boolean elements as JSON numbers and
+ * booleans, with an empty element becoming {@code null}; text that is not a valid value of its
+ * type is kept as a string. Array elements are always written as an array, even when they occur
+ * once, and without buffering the first occurrence to look for a repetition.
+ */
+public final class ConversionPlan {
+
+    public static final ConversionPlan UNTYPED = new ConversionPlan(Map.of(), null);
+
+    private static final int ID_LENGTH = 12;
+
+    private final Map<String, Field> fields;
+    private final String id;
+
+    private ConversionPlan(Map<String, Field> fields, String id) {
+        this.fields = fields;
+        this.id = id;
+    }
+
+    /**
+     * Compiles a plan from element names.
+     *
+     * @throws IllegalArgumentException if an element is declared both a number and a boolean
+     */
+    public static ConversionPlan of(Collection<String> numbers, Collection<String> booleans,
+            Collection<String> arrays) {
+        Map<String, Field> fields = new TreeMap<>();
+        for (String name : numbers) {
+            fields.put(name, new Field(ValueType.NUMBER, false));
+        }
+        for (String name : booleans) {
+            if (fields.containsKey(name)) {
+                throw new IllegalArgumentException("Element declared as both number and boolean: " + name);
+            }
+            fields.put(name, new Field(ValueType.BOOLEAN, false));
+        }
+        for (String name : arrays) {
+            fields.merge(name, new Field(ValueType.STRING, true), (field, array) -> new Field(field.type(), true));
+        }
+        if (fields.isEmpty()) {
+            return UNTYPED;
+        }
+        String definition = fields.toString();
+        String id = HexFormat.of().formatHex(ContentDigestStore.newDigest()
+                .digest(definition.getBytes(StandardCharsets.UTF_8))).substring(0, ID_LENGTH);
+        return new ConversionPlan(new HashMap<>(fields), id);
+    }
+
+    public boolean isUntyped() {
+        return fields.isEmpty();
+    }
+
+    /**
+     * Returns a short hash of the plan definition, which changes whenever the definition does, or
+     * {@code null} for the untyped plan.
+     */
+    public String id() {
+        return id;
+    }
+
+    Field field(String name) {
+        return fields.get(name);
+    }
+
+    enum ValueType {
+        STRING,
+        NUMBER,
+        BOOLEAN
+    }
+
+    record Field(ValueType type, boolean array) {
+    }
+}
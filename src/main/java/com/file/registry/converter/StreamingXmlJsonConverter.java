@@ -0,0 +1,339 @@
+package com.file.registry.converter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.file.registry.converter.ConversionPlan.Field;
+import com.file.registry.converter.ConversionPlan.ValueType;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts XML into JSON token by token, without materializing a {@code JsonNode} tree.
+ *
+ * <p>Repeated sibling elements are grouped into a JSON array, the same way {@code readTree} does.
+ * To decide whether an element starts such a run, the first value of every run is held in a
+ * {@link TokenBuffer} until the next sibling is seen; a text or empty element, which most runs
+ * start with, is held as its string without a buffer. A buffered value that grows beyond
+ * {@code maxBufferedTokens} is spilled to the output as the first item of an array, which keeps
+ * memory bounded by the nesting depth instead of the document size. Since the element may still
+ * repeat, the array stays open until its run ends, so an oversized element always comes out as an
+ * array, of one item if it is not repeated, and no repetition is ever written as a duplicate
+ * field.
+ *
+ * <p>A {@link ConversionPlan} types the values of the elements it names while they are copied,
+ * and starts an array for its array elements right away instead of buffering their first value.
+ */
+@Component
+public class StreamingXmlJsonConverter {
+
+    private static final int DEFAULT_MAX_BUFFERED_TOKENS = 16_384;
+    private static final String TRUE = "true";
+    private static final String FALSE = "false";
+
+    private final XmlMapper xmlMapper;
+    private final ObjectMapper jsonMapper;
+    private final int maxBufferedTokens;
+
+    @Autowired
+    public StreamingXmlJsonConverter(
+            XmlMapper xmlMapper,
+            @Qualifier("jsonObjectMapper") ObjectMapper jsonMapper) {
+        this(xmlMapper, jsonMapper, DEFAULT_MAX_BUFFERED_TOKENS);
+    }
+
+    StreamingXmlJsonConverter(XmlMapper xmlMapper, ObjectMapper jsonMapper, int maxBufferedTokens) {
+        this.xmlMapper = xmlMapper;
+        this.jsonMapper = jsonMapper;
+        this.maxBufferedTokens = maxBufferedTokens;
+    }
+
+    public void convert(InputStream xml, OutputStream json) throws IOException {
+        convert(xml, json, true);
+    }
+
+    /**
+     * Converts {@code xml} into {@code json}, indented or compact, and closes {@code json}.
+     */
+    public void convert(InputStream xml, OutputStream json, boolean pretty) throws IOException {
+        convert(xml, json, pretty, ConversionPlan.UNTYPED);
+    }
+
+    /**
+     * Converts {@code xml} into {@code json} following {@code plan}, and closes {@code json}.
+     */
+    public void convert(InputStream xml, OutputStream json, boolean pretty, ConversionPlan plan)
+            throws IOException {
+        try (JsonParser parser = xmlMapper.createParser(xml);
+                JsonGenerator generator = jsonMapper.createGenerator(json)) {
+            if (pretty) {
+                generator.useDefaultPrettyPrinter();
+            } else {
+                // the mapper may enable INDENT_OUTPUT, which createGenerator applies
+                generator.setPrettyPrinter(null);
+            }
+
+            Conversion conversion = new Conversion(parser, plan);
+            if (conversion.next() == null) {
+                throw new JsonParseException(parser, "XML document has no content");
+            }
+            conversion.copyValue(generator, null);
+        }
+    }
+
+    private final class Conversion {
+
+        private final JsonParser parser;
+        private final ConversionPlan plan;
+        private long consumedTokens;
+
+        private Conversion(JsonParser parser, ConversionPlan plan) {
+            this.parser = parser;
+            this.plan = plan;
+        }
+
+        private JsonToken next() throws IOException {
+            consumedTokens++;
+            return parser.nextToken();
+        }
+
+        /**
+         * Copies the current value, typing its text if it is the value of a planned {@code field}.
+         */
+        private void copyValue(JsonGenerator generator, Field field) throws IOException {
+            switch (parser.currentToken()) {
+                case START_OBJECT -> copyObject(generator);
+                case START_ARRAY -> copyArray(generator, field);
+                case VALUE_STRING -> {
+                    if (field == null) {
+                        generator.copyCurrentEvent(parser);
+                    } else {
+                        writeText(generator, parser.getText(), field);
+                    }
+                }
+                default -> generator.copyCurrentEvent(parser);
+            }
+        }
+
+        private void copyArray(JsonGenerator generator, Field field) throws IOException {
+            generator.writeStartArray();
+            while (next() != JsonToken.END_ARRAY) {
+                copyValue(generator, field);
+                spillOversized(generator);
+            }
+            generator.writeEndArray();
+        }
+
+        private void copyObject(JsonGenerator generator) throws IOException {
+            generator.writeStartObject();
+
+            String runName = null;
+            Field runField = null;
+            // the first value of the current run: a buffered structure, or else a string or null
+            PendingValue pending = null;
+            String pendingText = null;
+            boolean inArray = false;
+
+            while (next() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                final JsonToken token = next();
+
+                if (name.equals(runName)) {
+                    if (!inArray && !isSpilled(pending)) {
+                        generator.writeFieldName(name);
+                        generator.writeStartArray();
+                        replay(generator, pending, pendingText, runField);
+                    }
+                    inArray = true;
+                    copyValue(generator, runField);
+                    spillOversized(generator);
+                    continue;
+                }
+
+                closeRun(generator, runName, pending, pendingText, runField, inArray);
+                runName = name;
+                runField = plan.field(name);
+                inArray = runField != null && runField.array();
+                if (inArray) {
+                    pending = null;
+                    pendingText = null;
+                    generator.writeFieldName(name);
+                    generator.writeStartArray();
+                    copyValue(generator, runField);
+                    spillOversized(generator);
+                } else if (token == JsonToken.VALUE_STRING || token == JsonToken.VALUE_NULL) {
+                    pending = null;
+                    pendingText = token == JsonToken.VALUE_STRING ? parser.getText() : null;
+                } else {
+                    pendingText = null;
+                    pending = new PendingValue(generator, name, consumedTokens);
+                    copyValue(pending, runField);
+                    spillOversized(pending);
+                }
+            }
+
+            closeRun(generator, runName, pending, pendingText, runField, inArray);
+            generator.writeEndObject();
+        }
+
+        private void closeRun(JsonGenerator generator, String runName, PendingValue pending, String pendingText,
+                Field runField, boolean inArray) throws IOException {
+            if (inArray || isSpilled(pending)) {
+                generator.writeEndArray();
+            } else if (runName != null) {
+                generator.writeFieldName(runName);
+                replay(generator, pending, pendingText, runField);
+            }
+        }
+
+        private static boolean isSpilled(PendingValue pending) {
+            return pending != null && pending.isSpilled();
+        }
+
+        private void replay(JsonGenerator generator, PendingValue pending, String pendingText, Field runField)
+                throws IOException {
+            if (pending != null) {
+                pending.replay();
+            } else if (pendingText != null) {
+                if (runField == null) {
+                    generator.writeString(pendingText);
+                } else {
+                    writeText(generator, pendingText, runField);
+                }
+            } else {
+                generator.writeNull();
+            }
+        }
+
+        private void spillOversized(JsonGenerator generator) throws IOException {
+            PendingValue oversized;
+            do {
+                oversized = null;
+                JsonGenerator current = generator;
+                while (current instanceof PendingValue pending) {
+                    if (!pending.isSpilled()
+                            && consumedTokens - pending.startToken > maxBufferedTokens) {
+                        oversized = pending;
+                    }
+                    current = pending.parent;
+                }
+                if (oversized != null) {
+                    oversized.spill();
+                }
+            } while (oversized != null);
+        }
+    }
+
+    /**
+     * Writes the text of a planned element as its type: an empty number or boolean is written as
+     * {@code null}, and text that is not a valid value of the type as a string.
+     */
+    private static void writeText(JsonGenerator generator, String text, Field field) throws IOException {
+        if (field.type() == ValueType.STRING) {
+            generator.writeString(text);
+            return;
+        }
+        String value = text.strip();
+        if (value.isEmpty()) {
+            generator.writeNull();
+        } else if (field.type() == ValueType.NUMBER && isJsonNumber(value)) {
+            generator.writeNumber(value);
+        } else if (field.type() == ValueType.BOOLEAN && (TRUE.equals(value) || "1".equals(value))) {
+            generator.writeBoolean(true);
+        } else if (field.type() == ValueType.BOOLEAN && (FALSE.equals(value) || "0".equals(value))) {
+            generator.writeBoolean(false);
+        } else {
+            generator.writeString(text);
+        }
+    }
+
+    /**
+     * Checks {@code -?(0|[1-9][0-9]*)(.[0-9]+)?([eE][+-]?[0-9]+)?}, so the text can be written as
+     * a number verbatim, without losing precision to a {@code double}.
+     */
+    private static boolean isJsonNumber(String value) {
+        int length = value.length();
+        int i = value.charAt(0) == '-' ? 1 : 0;
+        int integerStart = i;
+        i = skipDigits(value, i);
+        if (i == integerStart || (value.charAt(integerStart) == '0' && i - integerStart > 1)) {
+            return false;
+        }
+        if (i < length && value.charAt(i) == '.') {
+            int fractionStart = ++i;
+            i = skipDigits(value, i);
+            if (i == fractionStart) {
+                return false;
+            }
+        }
+        if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+                i++;
+            }
+            int exponentStart = i;
+            i = skipDigits(value, i);
+            if (i == exponentStart) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+
+    private static int skipDigits(String value, int start) {
+        int i = start;
+        while (i < value.length() && value.charAt(i) >= '0' && value.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Value of a field whose siblings are not known yet. Writes go into a {@link TokenBuffer}
+     * until the value is either replayed by its owner or spilled straight into {@link #parent}.
+     */
+    private static final class PendingValue extends JsonGeneratorDelegate {
+
+        private final JsonGenerator parent;
+        private final String name;
+        private final long startToken;
+        private TokenBuffer buffer;
+
+        private PendingValue(JsonGenerator parent, String name, long startToken) {
+            super(new TokenBuffer(null, false), true);
+            this.parent = parent;
+            this.name = name;
+            this.startToken = startToken;
+            this.buffer = (TokenBuffer) delegate;
+        }
+
+        private boolean isSpilled() {
+            return buffer == null;
+        }
+
+        private void replay() throws IOException {
+            buffer.serialize(parent);
+            buffer = null;
+        }
+
+        /**
+         * Writes the buffered start of the value to {@link #parent} as the first item of an array,
+         * which the owner closes when the run of the element ends, and sends further writes there.
+         */
+        private void spill() throws IOException {
+            parent.writeFieldName(name);
+            parent.writeStartArray();
+            replay();
+            delegate = parent;
+        }
+    }
+}
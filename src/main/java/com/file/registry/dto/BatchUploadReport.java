@@ -0,0 +1,14 @@
+package com.file.registry.dto;
+
+import java.util.List;
+import org.springframework.http.HttpStatus;
+
+public record BatchUploadReport(int total, int succeeded, int failed, List<FileUploadStatus> files) {
+
+    public static BatchUploadReport of(List<FileUploadStatus> files) {
+        int succeeded = (int) files.stream()
+                .filter(file -> HttpStatus.valueOf(file.status()).is2xxSuccessful())
+                .count();
+        return new BatchUploadReport(files.size(), succeeded, files.size() - succeeded, files);
+    }
+}
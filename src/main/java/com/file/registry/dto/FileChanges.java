@@ -0,0 +1,9 @@
+package com.file.registry.dto;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+/**
+ * The JSON Patch that turns version {@code fromVersion} of a file into {@code toVersion}.
+ */
+public record FileChanges(int fromVersion, int toVersion, int currentVersion, ArrayNode patch) {
+}
@@ -0,0 +1,28 @@
+package com.file.registry.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * A page of file names in index order. {@code nextCursor} is an opaque token to pass as
+ * {@code cursor} for the following page, or {@code null} on the last page.
+ *
+ * <p>The cursor encodes the last returned name, and the next page starts strictly after it. Pages
+ * therefore stay consistent while files are added or removed, without any state on the server.
+ */
+public record FilePage(List<String> files, String nextCursor) {
+
+    public static String encodeCursor(String lastFileName) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastFileName.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor returned by {@link #encodeCursor(String)}.
+     *
+     * @throws IllegalArgumentException if the cursor is not valid Base64URL
+     */
+    public static String decodeCursor(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+}
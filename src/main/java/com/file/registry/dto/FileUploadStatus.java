@@ -0,0 +1,4 @@
+package com.file.registry.dto;
+
+public record FileUploadStatus(String fileName, int status, String message) {
+}
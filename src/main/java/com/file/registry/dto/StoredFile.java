@@ -0,0 +1,89 @@
+package com.file.registry.dto;
+
+import com.file.registry.cache.ByteBufferResource;
+import com.file.registry.storage.GzipDecodingResource;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * A stored file with its validators. {@code length} and {@code etag} describe the bytes on disk;
+ * {@code decodedLength} is the JSON length of a gzip-compressed file, or {@link #UNCOMPRESSED}.
+ * {@code content} is set only when the file is served from the document cache.
+ *
+ * <p>{@code fileKey} identifies the file the validators were read from, so a reader can tell
+ * whether the path was replaced since. {@code blob} is the content-addressed path of a
+ * deduplicated file, whose bytes never change, or {@code null}.
+ */
+public record StoredFile(
+        Path path,
+        long length,
+        Instant lastModified,
+        String etag,
+        long decodedLength,
+        Object fileKey,
+        Path blob,
+        ByteBuffer content) {
+
+    public static final long UNCOMPRESSED = -1;
+
+    public StoredFile(Path path, long length, Instant lastModified, String etag) {
+        this(path, length, lastModified, etag, UNCOMPRESSED, null, null, null);
+    }
+
+    public StoredFile(Path path, long length, Instant lastModified, String etag, long decodedLength,
+            Object fileKey, Path blob) {
+        this(path, length, lastModified, etag, decodedLength, fileKey, blob, null);
+    }
+
+    public String fileName() {
+        return path.getFileName().toString();
+    }
+
+    public boolean isCached() {
+        return content != null;
+    }
+
+    public boolean isCompressed() {
+        return decodedLength != UNCOMPRESSED;
+    }
+
+    public StoredFile withContent(ByteBuffer content) {
+        return new StoredFile(path, length, lastModified, etag, decodedLength, fileKey, blob, content);
+    }
+
+    /**
+     * Opens the file for reading, or returns {@code null} if the path no longer refers to the
+     * file these validators were read from. The open channel keeps reading that file even if
+     * the path is replaced or deleted afterwards.
+     */
+    public FileChannel open() throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        if (fileKey != null && !fileKey.equals(Files.readAttributes(path, BasicFileAttributes.class).fileKey())) {
+            channel.close();
+            return null;
+        }
+        return channel;
+    }
+
+    /**
+     * Returns the JSON content, decompressing it if the file is stored compressed.
+     */
+    public Resource toResource() {
+        return isCompressed() ? new GzipDecodingResource(toStoredResource(), decodedLength) : toStoredResource();
+    }
+
+    /**
+     * Returns the bytes as stored, which are gzip-encoded if the file is compressed.
+     */
+    public Resource toStoredResource() {
+        return isCached() ? new ByteBufferResource(content, fileName()) : new FileSystemResource(path);
+    }
+}
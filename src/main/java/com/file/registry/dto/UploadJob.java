@@ -0,0 +1,39 @@
+package com.file.registry.dto;
+
+import java.time.Instant;
+
+/**
+ * State of an asynchronous upload or update. {@code errorStatus} and {@code message} describe
+ * why a failed job failed, using the status the synchronous endpoint would have answered with.
+ */
+public record UploadJob(String id, String fileName, Type type, Status status, Instant submittedAt,
+                        Instant finishedAt, Integer errorStatus, String message) {
+
+    public static UploadJob queued(String id, String fileName, Type type) {
+        return new UploadJob(id, fileName, type, Status.QUEUED, Instant.now(), null, null, null);
+    }
+
+    public UploadJob running() {
+        return new UploadJob(id, fileName, type, Status.RUNNING, submittedAt, null, null, null);
+    }
+
+    public UploadJob succeeded() {
+        return new UploadJob(id, fileName, type, Status.SUCCEEDED, submittedAt, Instant.now(), null, null);
+    }
+
+    public UploadJob failed(int errorStatus, String message) {
+        return new UploadJob(id, fileName, type, Status.FAILED, submittedAt, Instant.now(), errorStatus, message);
+    }
+
+    public enum Type {
+        UPLOAD,
+        UPDATE
+    }
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+}
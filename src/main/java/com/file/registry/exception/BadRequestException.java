@@ -0,0 +1,11 @@
+package com.file.registry.exception;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpStatus;
+
+public class BadRequestException extends RestException {
+
+    public BadRequestException(@Nullable String reason) {
+        super(HttpStatus.BAD_REQUEST, reason);
+    }
+}
@@ -0,0 +1,10 @@
+package com.file.registry.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class PayloadTooLargeException extends RestException {
+
+    public PayloadTooLargeException(String reason) {
+        super(HttpStatus.CONTENT_TOO_LARGE, reason);
+    }
+}
@@ -0,0 +1,10 @@
+package com.file.registry.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class TooManyRequestsException extends RestException {
+
+    public TooManyRequestsException(String reason) {
+        super(HttpStatus.TOO_MANY_REQUESTS, reason);
+    }
+}
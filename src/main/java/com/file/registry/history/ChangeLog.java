@@ -0,0 +1,288 @@
+package com.file.registry.history;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.file.registry.dto.FileChanges;
+import com.file.registry.dto.StoredFile;
+import com.file.registry.exception.BadRequestException;
+import com.file.registry.exception.InternalErrorException;
+import com.file.registry.properties.StorageProperties;
+import com.file.registry.storage.StorageLayout;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records how updates change stored files, as one JSON Patch per version.
+ *
+ * <p>The change log of a file is {@code history/<xx>/<file>.changes}, with one
+ * {@code {"version": n, "time": ..., "patch": [...]}} line for every update that changed its
+ * content. The patch turns version {@code n - 1} into version {@code n}; the first stored content
+ * is version 1. Patches carry the values they replace (see {@link JsonPatches}), so any earlier
+ * version is rebuilt from the current content by undoing the newer patches, and no version is
+ * stored in full. A change to or from a document larger than {@code history.max-document-size}
+ * is recorded without a patch, and versions cannot be compared across it. Recording a change reads
+ * only the last line of the log, so its cost does not grow with the number of versions.
+ *
+ * <p>The history does not reduce write amplification. Only an unchanged update is skipped; a
+ * changed update still rewrites the whole file and then appends the patch on top, so it writes
+ * more than it would without the history. The stored file stays the full current document because
+ * downloads stream it as is. Recording also parses both the previous and the new content into
+ * trees to diff them, so an update holds two documents in memory instead of streaming. The size
+ * limit bounds that cost and defaults to 1MB. A tree also keeps only the last of duplicate fields,
+ * which files stored before the converter wrote spilled elements as arrays may still contain, so
+ * documents with duplicate fields are recorded without a patch rather than with one that does not
+ * describe the stored bytes.
+ */
+@Slf4j
+@Component
+public class ChangeLog {
+
+    public static final String HISTORY_DIRECTORY = "history";
+
+    private static final String CHANGES_EXTENSION = ".changes";
+    private static final String VERSION_FIELD = "version";
+    private static final String TIME_FIELD = "time";
+    private static final String PATCH_FIELD = "patch";
+    private static final int FIRST_VERSION = 1;
+    private static final byte NEWLINE = '\n';
+    private static final int TAIL_BLOCK_SIZE = 8192;
+
+    private final Path historyPath;
+    private final boolean enabled;
+    private final long maxDocumentSize;
+    private final ObjectMapper jsonMapper;
+    private final ObjectWriter lineWriter;
+    private final ObjectReader documentReader;
+
+    public ChangeLog(StorageProperties storageProperties, @Qualifier("jsonObjectMapper") ObjectMapper jsonMapper) {
+        this.historyPath = Paths.get(storageProperties.getPath()).resolve(HISTORY_DIRECTORY);
+        this.enabled = storageProperties.getHistory().isEnabled();
+        this.maxDocumentSize = storageProperties.getHistory().getMaxDocumentSize().toBytes();
+        this.jsonMapper = jsonMapper;
+        this.lineWriter = jsonMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.documentReader = jsonMapper.reader().with(StreamReadFeature.STRICT_DUPLICATE_DETECTION);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reads the JSON content of a file for comparison, or returns {@code null} if the change log
+     * is disabled, or the file is too large or has duplicate fields.
+     */
+    public JsonNode snapshot(StoredFile storedFile) throws IOException {
+        long size = storedFile.isCompressed() ? storedFile.decodedLength() : storedFile.length();
+        if (!enabled || size > maxDocumentSize) {
+            return null;
+        }
+        try (InputStream content = storedFile.toResource().getInputStream()) {
+            return documentReader.readTree(content);
+        } catch (StreamReadException e) {
+            log.debug("Not comparing {}: {}", storedFile.fileName(), e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Appends the change from {@code previous} to {@code current}, either of which is
+     * {@code null} if it was not {@linkplain #snapshot snapshotted}. Does nothing if the content
+     * did not change.
+     */
+    public void record(String fileName, JsonNode previous, JsonNode current) throws IOException {
+        ArrayNode patch = previous == null || current == null ? null : JsonPatches.diff(previous, current);
+        if (patch != null && patch.isEmpty()) {
+            return;
+        }
+        Path changesPath = changesPath(fileName);
+        Files.createDirectories(changesPath.getParent());
+        try (FileChannel channel = FileChannel.open(changesPath,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ObjectNode change = jsonMapper.createObjectNode()
+                    .put(VERSION_FIELD, lastVersion(changesPath, channel) + 1)
+                    .put(TIME_FIELD, Instant.now().toString());
+            change.set(PATCH_FIELD, patch);
+            ByteBuffer line = ByteBuffer.wrap((lineWriter.writeValueAsString(change) + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            long position = channel.size();
+            while (line.hasRemaining()) {
+                position += channel.write(line, position);
+            }
+        }
+    }
+
+    /**
+     * Returns the patch that turns version {@code from} of a file into version {@code to}. Either
+     * defaults to the current version, and {@code from} to the version before {@code to}.
+     *
+     * @param current the current content of the file
+     * @throws BadRequestException if a version does not exist or a change between them was not
+     *                             recorded
+     */
+    public FileChanges diff(String fileName, StoredFile current, Integer from, Integer to) throws IOException {
+        List<JsonNode> changes = read(changesPath(fileName));
+        int currentVersion = currentVersion(changes);
+        int toVersion = to == null ? currentVersion : to;
+        int fromVersion = from == null ? Math.max(FIRST_VERSION, toVersion - 1) : from;
+        for (int version : new int[] {toVersion, fromVersion}) {
+            if (version < FIRST_VERSION || version > currentVersion) {
+                throw new BadRequestException("Unknown version " + version + ", current version is " + currentVersion);
+            }
+        }
+        JsonNode document = snapshot(current);
+        if (document == null) {
+            throw new BadRequestException("File is too large or has duplicate fields to compare versions: "
+                    + fileName);
+        }
+
+        int oldest = Math.min(fromVersion, toVersion);
+        JsonNode fromDocument = null;
+        JsonNode toDocument = null;
+        for (int version = currentVersion; ; version--) {
+            if (version == toVersion) {
+                toDocument = version == oldest ? document : document.deepCopy();
+            }
+            if (version == fromVersion) {
+                fromDocument = version == oldest ? document : document.deepCopy();
+            }
+            if (version == oldest) {
+                break;
+            }
+            JsonNode patch = changes.get(version - FIRST_VERSION - 1).get(PATCH_FIELD);
+            if (patch == null || patch.isNull()) {
+                throw new BadRequestException("Version " + version + " of " + fileName
+                        + " was recorded without a patch, versions before it cannot be compared");
+            }
+            try {
+                document = JsonPatches.apply(document, JsonPatches.invert(patch));
+            } catch (IllegalArgumentException e) {
+                throw new InternalErrorException("Change log does not match the content of: " + fileName, e);
+            }
+        }
+        return new FileChanges(fromVersion, toVersion, currentVersion, JsonPatches.diff(fromDocument, toDocument));
+    }
+
+    public void delete(String fileName) {
+        Path changesPath = changesPath(fileName);
+        try {
+            Files.deleteIfExists(changesPath);
+        } catch (IOException e) {
+            log.warn("Failed to delete change log: {}", changesPath, e);
+        }
+    }
+
+    /**
+     * Reads the changes in version order. A last line cut short by a crash is ignored.
+     */
+    private List<JsonNode> read(Path changesPath) throws IOException {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(changesPath, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return List.of();
+        }
+        List<JsonNode> changes = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            try {
+                changes.add(jsonMapper.readTree(line));
+            } catch (JsonProcessingException e) {
+                log.warn("Ignoring incomplete record in change log: {}", changesPath);
+                break;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Returns the version of the last change in the log, reading only its last line, so the cost
+     * of an append does not grow with the history. A last line cut short by a crash is truncated
+     * first, so the next change starts on a line of its own instead of extending the torn one.
+     */
+    private int lastVersion(Path changesPath, FileChannel channel) throws IOException {
+        long size = channel.size();
+        long tornStart = lastIndexOf(channel, size, NEWLINE) + 1;
+        if (tornStart < size) {
+            log.warn("Truncating incomplete record in change log: {}", changesPath);
+            channel.truncate(tornStart);
+            size = tornStart;
+        }
+        if (size == 0) {
+            return FIRST_VERSION;
+        }
+        long lineStart = lastIndexOf(channel, size - 1, NEWLINE) + 1;
+        // the parser must not close the stream, which would close the channel before the append
+        try (JsonParser parser = jsonMapper.reader().without(StreamReadFeature.AUTO_CLOSE_SOURCE)
+                .createParser(Channels.newInputStream(channel.position(lineStart)))) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if (VERSION_FIELD.equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                        return parser.getIntValue();
+                    }
+                    parser.skipChildren();
+                }
+            }
+        }
+        throw new IOException("Last record of change log has no version: " + changesPath);
+    }
+
+    /**
+     * Returns the position of the last {@code value} before {@code end}, or {@code -1}, reading the
+     * file backwards one block at a time.
+     */
+    private static long lastIndexOf(FileChannel channel, long end, byte value) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(TAIL_BLOCK_SIZE);
+        long blockEnd = end;
+        while (blockEnd > 0) {
+            long blockStart = Math.max(0, blockEnd - TAIL_BLOCK_SIZE);
+            block.clear().limit((int) (blockEnd - blockStart));
+            while (block.hasRemaining()) {
+                if (channel.read(block, blockStart + block.position()) < 0) {
+                    throw new EOFException("Change log shrank while it was read");
+                }
+            }
+            for (int i = block.position() - 1; i >= 0; i--) {
+                if (block.get(i) == value) {
+                    return blockStart + i;
+                }
+            }
+            blockEnd = blockStart;
+        }
+        return -1;
+    }
+
+    private static int currentVersion(List<JsonNode> changes) {
+        return changes.isEmpty() ? FIRST_VERSION : changes.getLast().path(VERSION_FIELD).asInt();
+    }
+
+    private Path changesPath(String fileName) {
+        return StorageLayout.shardDirectory(historyPath, fileName, 1).resolve(fileName + CHANGES_EXTENSION);
+    }
+}
@@ -0,0 +1,199 @@
+package com.file.registry.history;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.Map;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Creates, applies and inverts RFC 6902 JSON Patches.
+ *
+ * <p>A created patch precedes every {@code remove} and {@code replace} with a {@code test} of the
+ * value it drops. Applying it therefore fails on a document it was not made for, and it can be
+ * inverted without the document it was made from. Array elements are compared by position:
+ * changed elements are patched in place, and the longer array's tail is added or removed.
+ */
+@UtilityClass
+public class JsonPatches {
+
+    public static final String MEDIA_TYPE = "application/json-patch+json";
+
+    private static final String OP = "op";
+    private static final String PATH = "path";
+    private static final String VALUE = "value";
+    private static final String ADD = "add";
+    private static final String REMOVE = "remove";
+    private static final String REPLACE = "replace";
+    private static final String TEST = "test";
+    private static final String APPEND_INDEX = "-";
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    /**
+     * Returns the patch that turns {@code source} into {@code target}.
+     */
+    public static ArrayNode diff(JsonNode source, JsonNode target) {
+        ArrayNode patch = NODES.arrayNode();
+        diff(source, target, "", patch);
+        return patch;
+    }
+
+    private static void diff(JsonNode source, JsonNode target, String path, ArrayNode patch) {
+        if (source.equals(target)) {
+            return;
+        }
+        if (source.isObject() && target.isObject()) {
+            for (Map.Entry<String, JsonNode> field : source.properties()) {
+                String fieldPath = path + "/" + escape(field.getKey());
+                JsonNode targetValue = target.get(field.getKey());
+                if (targetValue == null) {
+                    add(patch, TEST, fieldPath, field.getValue());
+                    add(patch, REMOVE, fieldPath, null);
+                } else {
+                    diff(field.getValue(), targetValue, fieldPath, patch);
+                }
+            }
+            for (Map.Entry<String, JsonNode> field : target.properties()) {
+                if (!source.has(field.getKey())) {
+                    add(patch, ADD, path + "/" + escape(field.getKey()), field.getValue());
+                }
+            }
+        } else if (source.isArray() && target.isArray()) {
+            int common = Math.min(source.size(), target.size());
+            for (int i = 0; i < common; i++) {
+                diff(source.get(i), target.get(i), path + "/" + i, patch);
+            }
+            for (int i = common; i < target.size(); i++) {
+                add(patch, ADD, path + "/" + i, target.get(i));
+            }
+            // from the end, so the indexes of the elements still to remove stay valid
+            for (int i = source.size() - 1; i >= common; i--) {
+                add(patch, TEST, path + "/" + i, source.get(i));
+                add(patch, REMOVE, path + "/" + i, null);
+            }
+        } else {
+            add(patch, TEST, path, source);
+            add(patch, REPLACE, path, target);
+        }
+    }
+
+    /**
+     * Applies a patch and returns the patched document. {@code document} is changed in place
+     * unless the patch replaces it as a whole.
+     *
+     * @throws IllegalArgumentException if a path does not exist, a test fails or an operation is
+     *                                  not supported
+     */
+    public static JsonNode apply(JsonNode document, JsonNode patch) {
+        JsonNode result = document;
+        for (JsonNode operation : patch) {
+            String op = operation.path(OP).asText();
+            JsonPointer path = JsonPointer.compile(operation.path(PATH).asText());
+            JsonNode value = operation.get(VALUE);
+            switch (op) {
+                case TEST -> {
+                    if (!result.at(path).equals(value)) {
+                        throw new IllegalArgumentException("Test failed at " + path);
+                    }
+                }
+                case ADD, REPLACE -> result = set(result, path, value.deepCopy(), op.equals(ADD));
+                case REMOVE -> remove(result, path);
+                default -> throw new IllegalArgumentException("Unsupported patch operation: " + op);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the patch that undoes a patch created by {@link #diff}.
+     *
+     * @throws IllegalArgumentException if a {@code remove} or {@code replace} is not preceded by a
+     *                                  test of the value it drops
+     */
+    public static ArrayNode invert(JsonNode patch) {
+        ArrayNode inverted = NODES.arrayNode();
+        for (int i = patch.size() - 1; i >= 0; i--) {
+            JsonNode operation = patch.get(i);
+            String op = operation.path(OP).asText();
+            String path = operation.path(PATH).asText();
+            JsonNode value = operation.get(VALUE);
+            switch (op) {
+                case ADD -> {
+                    add(inverted, TEST, path, value);
+                    add(inverted, REMOVE, path, null);
+                }
+                case REMOVE, REPLACE -> {
+                    JsonNode test = i > 0 ? patch.get(i - 1) : null;
+                    if (test == null || !TEST.equals(test.path(OP).asText())
+                            || !path.equals(test.path(PATH).asText())) {
+                        throw new IllegalArgumentException("No test of the value dropped at " + path);
+                    }
+                    i--;
+                    if (op.equals(REPLACE)) {
+                        add(inverted, TEST, path, value);
+                    }
+                    add(inverted, op.equals(REPLACE) ? REPLACE : ADD, path, test.get(VALUE));
+                }
+                case TEST -> {
+                    // a test on its own changes nothing
+                }
+                default -> throw new IllegalArgumentException("Unsupported patch operation: " + op);
+            }
+        }
+        return inverted;
+    }
+
+    private static JsonNode set(JsonNode document, JsonPointer path, JsonNode value, boolean insert) {
+        if (path.matches()) {
+            return value;
+        }
+        JsonNode parent = document.at(path.head());
+        String key = path.last().getMatchingProperty();
+        if (parent instanceof ObjectNode object && (insert || object.has(key))) {
+            object.set(key, value);
+        } else if (parent instanceof ArrayNode array && insert && APPEND_INDEX.equals(key)) {
+            array.add(value);
+        } else if (parent instanceof ArrayNode array && isIndex(array, path.last(), insert)) {
+            int index = path.last().getMatchingIndex();
+            if (insert) {
+                array.insert(index, value);
+            } else {
+                array.set(index, value);
+            }
+        } else {
+            throw new IllegalArgumentException("No such path: " + path);
+        }
+        return document;
+    }
+
+    private static void remove(JsonNode document, JsonPointer path) {
+        JsonNode parent = path.matches() ? null : document.at(path.head());
+        String key = path.matches() ? null : path.last().getMatchingProperty();
+        if (parent instanceof ObjectNode object && object.has(key)) {
+            object.remove(key);
+        } else if (parent instanceof ArrayNode array && isIndex(array, path.last(), false)) {
+            array.remove(path.last().getMatchingIndex());
+        } else {
+            throw new IllegalArgumentException("No such path: " + path);
+        }
+    }
+
+    private static boolean isIndex(ArrayNode array, JsonPointer segment, boolean insert) {
+        int index = segment.getMatchingIndex();
+        return index >= 0 && (insert ? index <= array.size() : index < array.size());
+    }
+
+    private static void add(ArrayNode patch, String op, String path, JsonNode value) {
+        ObjectNode operation = patch.addObject().put(OP, op).put(PATH, path);
+        if (value != null) {
+            operation.set(VALUE, value);
+        }
+    }
+
+    private static String escape(String key) {
+        return key.replace("~", "~0").replace("/", "~1");
+    }
+}
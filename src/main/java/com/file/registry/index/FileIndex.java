@@ -0,0 +1,481 @@
+package com.file.registry.index;
+
+import static com.file.registry.constants.ApplicationConstants.JSON_EXTENSION;
+
+import com.file.registry.exception.InternalErrorException;
+import com.file.registry.storage.StorageLayout;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory secondary index of stored files by customer, type and date.
+ *
+ * <p>Each dimension maps a key to a sorted set of JSON file names, so lookups only copy the
+ * matching names and never touch the filesystem. The same {@code String} instance is shared by
+ * all three sets of a file. The keys are sorted as well, so a {@link FileQuery} resolves customer
+ * and type prefixes and date ranges to sub-maps, and is driven by the dimension with the fewest
+ * candidate files; the other criteria are checked on the candidate names themselves.
+ *
+ * <p>Every mutation is recorded in the {@link IndexJournal} under one lock before it is applied,
+ * so the journal order always matches the in-memory state and a mutation that cannot be recorded
+ * changes nothing; readers never take the lock. A full journal is rotated under the lock, and the
+ * snapshot of a copy of the file names is written by a background thread, so a mutation never
+ * waits for the snapshot unless the journal fills up again before it is done. On startup the
+ * index is restored from the journal snapshot plus replayed records, and only falls back to
+ * listing the storage directory when no journal exists yet. Components that defer work derived
+ * from the journaled mutations register to run {@link #beforeCompaction before the journal is
+ * compacted}; they run on the compacting thread.
+ */
+@Slf4j
+@Component
+public class FileIndex {
+
+    private final Set<String> files = ConcurrentHashMap.newKeySet();
+    private final NavigableMap<String, PostingList> byCustomer = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, PostingList> byType = new ConcurrentSkipListMap<>();
+    private final NavigableMap<LocalDate, PostingList> byDate = new ConcurrentSkipListMap<>();
+    private final Lock mutationLock = new ReentrantLock();
+    private final List<Runnable> compactionListeners = new CopyOnWriteArrayList<>();
+    private final IndexJournal journal;
+    private Thread compaction;
+
+    public FileIndex(IndexJournal journal) {
+        this.journal = journal;
+    }
+
+    public void add(String fileName) {
+        mutate(IndexOperation.ADD, fileName);
+    }
+
+    public void remove(String fileName) {
+        mutate(IndexOperation.REMOVE, fileName);
+    }
+
+    /**
+     * Registers an action to run before the journal records are folded into the snapshot.
+     */
+    public void beforeCompaction(Runnable listener) {
+        compactionListeners.add(listener);
+    }
+
+    /**
+     * Returns the indexed files added since the last journal compaction, in journal order.
+     */
+    public List<String> journaledFiles() {
+        mutationLock.lock();
+        try {
+            Set<String> journaled = new LinkedHashSet<>();
+            journal.replay((operation, fileName) -> {
+                if (operation == IndexOperation.ADD && files.contains(fileName)) {
+                    journaled.add(fileName);
+                }
+            });
+            return List.copyOf(journaled);
+        } finally {
+            mutationLock.unlock();
+        }
+    }
+
+    public List<String> findByCustomer(String customer) {
+        return find(byCustomer, customer);
+    }
+
+    public List<String> findByType(String type) {
+        return find(byType, type);
+    }
+
+    public List<String> findByDate(LocalDate date) {
+        return find(byDate, date);
+    }
+
+    /**
+     * Returns a read-only live view of the files of a customer, sorted by name. Iterating the
+     * view copies nothing and reflects concurrent changes without failing.
+     */
+    public NavigableSet<String> customerFiles(String customer) {
+        return view(byCustomer, customer);
+    }
+
+    public NavigableSet<String> typeFiles(String type) {
+        return view(byType, type);
+    }
+
+    public NavigableSet<String> dateFiles(LocalDate date) {
+        return view(byDate, date);
+    }
+
+    /**
+     * Streams the names of the files matching all criteria of a non-empty query, sorted by name
+     * and starting after the given name. Only the name range that can hold matches is scanned in
+     * the driving posting lists. The stream is lazy: a prefix or date range spanning several keys
+     * merges the sorted names of its keys, holding one name per key at a time.
+     */
+    public Stream<String> query(FileQuery query, String after) {
+        List<Collection<PostingList>> candidates = new ArrayList<>();
+        if (query.customer() != null) {
+            candidates.add(select(byCustomer, query.customer(), query.customerPrefix()));
+        }
+        if (query.type() != null) {
+            candidates.add(select(byType, query.type(), query.typePrefix()));
+        }
+        if (query.from() != null || query.to() != null) {
+            candidates.add(dates(query.from(), query.to()));
+        }
+        Collection<PostingList> driver = candidates.stream()
+                .min(Comparator.comparingLong(FileIndex::count))
+                .orElseThrow(() -> new IllegalArgumentException("Query has no criteria"));
+        String lower = query.lowerBound();
+        String upper = query.upperBound();
+        Stream<String> names = driver.size() == 1
+                ? scan(driver.iterator().next(), lower, upper, after).stream()
+                : merge(driver.stream().map(postings -> scan(postings, lower, upper, after).iterator()).toList());
+        return names.filter(query.matcher());
+    }
+
+    /**
+     * Streams the files dated within {@code [from, to]} ordered by date, then name, starting after
+     * the given file. Only the day partitions inside the range are visited, one after another, so
+     * the stream is lazy whatever the length of the range.
+     *
+     * @throws IllegalArgumentException if {@code after} is not a stored file name
+     */
+    public Stream<String> dateRangeFiles(LocalDate from, LocalDate to, String after) {
+        NavigableMap<LocalDate, PostingList> partitions = byDate.subMap(from, true, to, true);
+        if (after == null) {
+            return partitions.values().stream().flatMap(postings -> postings.names().stream());
+        }
+        FileKey key = FileKey.parse(after, JSON_EXTENSION);
+        if (key == null) {
+            throw new IllegalArgumentException("Not a stored file name: " + after);
+        }
+        LocalDate afterDate = key.date();
+        if (afterDate.isAfter(to)) {
+            return Stream.empty();
+        }
+        if (afterDate.isBefore(from)) {
+            return dateRangeFiles(from, to, null);
+        }
+        return partitions.tailMap(afterDate, true).entrySet().stream()
+                .flatMap(partition -> partition.getKey().equals(afterDate)
+                        ? partition.getValue().names().tailSet(after, false).stream()
+                        : partition.getValue().names().stream());
+    }
+
+    public boolean contains(String fileName) {
+        return files.contains(fileName);
+    }
+
+    /**
+     * Returns a read-only live view of the indexed customers, sorted.
+     */
+    public NavigableSet<String> customerKeys() {
+        return Collections.unmodifiableNavigableSet(byCustomer.navigableKeySet());
+    }
+
+    public NavigableSet<String> typeKeys() {
+        return Collections.unmodifiableNavigableSet(byType.navigableKeySet());
+    }
+
+    public NavigableSet<LocalDate> dateKeys() {
+        return Collections.unmodifiableNavigableSet(byDate.navigableKeySet());
+    }
+
+    public int size() {
+        return files.size();
+    }
+
+    public int customerCount() {
+        return byCustomer.size();
+    }
+
+    public int typeCount() {
+        return byType.size();
+    }
+
+    public int dateCount() {
+        return byDate.size();
+    }
+
+    public void restore(Path storagePath) {
+        if (!journal.hasSnapshot() && journal.isEmpty()) {
+            rebuild(storagePath);
+            return;
+        }
+        mutationLock.lock();
+        try {
+            clear();
+            journal.readSnapshot(this::applyAdd);
+            journal.replay(this::apply);
+            log.info("Restored file index with {} files from journal", files.size());
+        } catch (IOException e) {
+            log.error("Failed to restore file index from journal, rebuilding from storage", e);
+            rebuild(storagePath);
+        } finally {
+            mutationLock.unlock();
+        }
+    }
+
+    public void rebuild(Path storagePath) {
+        mutationLock.lock();
+        try (Stream<Path> stream = StorageLayout.storedFiles(storagePath)) {
+            clear();
+            stream.map(path -> path.getFileName().toString()).forEach(this::applyAdd);
+            compactJournal();
+            log.info("Rebuilt file index with {} files", files.size());
+        } catch (IOException e) {
+            log.error("Failed to rebuild file index from: {}", storagePath, e);
+            throw new InternalErrorException("Failed to rebuild file index: " + storagePath, e);
+        } finally {
+            mutationLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void compact() {
+        mutationLock.lock();
+        try {
+            compactJournal();
+        } catch (IOException e) {
+            log.error("Failed to compact file index journal", e);
+            throw new InternalErrorException("Failed to compact file index journal", e);
+        } finally {
+            mutationLock.unlock();
+        }
+    }
+
+    private void mutate(IndexOperation operation, String fileName) {
+        mutationLock.lock();
+        try {
+            append(operation, fileName);
+            apply(operation, fileName);
+        } catch (IOException e) {
+            log.error("Failed to append to file index journal: {} {}", operation, fileName, e);
+            throw new InternalErrorException(
+                    "Failed to append to file index journal: " + operation + " " + fileName, e);
+        } finally {
+            mutationLock.unlock();
+        }
+    }
+
+    private void append(IndexOperation operation, String fileName) throws IOException {
+        if (journal.append(operation, fileName)) {
+            return;
+        }
+        rotateJournal();
+        if (!journal.append(operation, fileName)) {
+            throw new IOException("Record does not fit into an empty journal: " + fileName);
+        }
+    }
+
+    /**
+     * Seals the full journal and compacts it on a background thread. A compaction that is still
+     * running is awaited first, and one that failed is redone on the calling thread.
+     */
+    private void rotateJournal() throws IOException {
+        awaitCompaction();
+        if (journal.hasSealedSegment()) {
+            compactJournal();
+            return;
+        }
+        journal.rotate();
+        List<String> snapshot = List.copyOf(files);
+        compaction = Thread.ofPlatform().name("index-compaction").daemon().start(() -> compactSealed(snapshot));
+    }
+
+    private void compactSealed(List<String> snapshot) {
+        try {
+            compactionListeners.forEach(Runnable::run);
+            journal.writeSnapshot(snapshot);
+            journal.dropSealedSegment();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to compact file index journal, retrying on next rotation", e);
+        }
+    }
+
+    private void compactJournal() throws IOException {
+        awaitCompaction();
+        compactionListeners.forEach(Runnable::run);
+        journal.compact(files);
+    }
+
+    private void awaitCompaction() {
+        if (compaction == null) {
+            return;
+        }
+        try {
+            compaction.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalErrorException("Interrupted while waiting for index journal compaction", e);
+        }
+        compaction = null;
+    }
+
+    private void apply(IndexOperation operation, String fileName) {
+        if (operation == IndexOperation.ADD) {
+            applyAdd(fileName);
+        } else {
+            applyRemove(fileName);
+        }
+    }
+
+    private void applyAdd(String fileName) {
+        FileKey key = FileKey.parse(fileName, JSON_EXTENSION);
+        if (key == null) {
+            log.warn("Skipping file with unsupported name: {}", fileName);
+            return;
+        }
+        files.add(fileName);
+        addPosting(byCustomer, key.customer(), fileName);
+        addPosting(byType, key.type(), fileName);
+        addPosting(byDate, key.date(), fileName);
+    }
+
+    private void applyRemove(String fileName) {
+        FileKey key = FileKey.parse(fileName, JSON_EXTENSION);
+        if (key == null || !files.remove(fileName)) {
+            return;
+        }
+        removePosting(byCustomer, key.customer(), fileName);
+        removePosting(byType, key.type(), fileName);
+        removePosting(byDate, key.date(), fileName);
+    }
+
+    private void clear() {
+        files.clear();
+        byCustomer.clear();
+        byType.clear();
+        byDate.clear();
+    }
+
+    private static <K> void addPosting(NavigableMap<K, PostingList> index, K key, String fileName) {
+        index.computeIfAbsent(key, k -> new PostingList()).add(fileName);
+    }
+
+    private static <K> void removePosting(NavigableMap<K, PostingList> index, K key, String fileName) {
+        index.computeIfPresent(key, (k, postings) -> {
+            postings.remove(fileName);
+            return postings.isEmpty() ? null : postings;
+        });
+    }
+
+    private static <K> List<String> find(NavigableMap<K, PostingList> index, K key) {
+        PostingList postings = index.get(key);
+        return postings == null ? List.of() : List.copyOf(postings.names());
+    }
+
+    private static <K> NavigableSet<String> view(NavigableMap<K, PostingList> index, K key) {
+        PostingList postings = index.get(key);
+        return postings == null ? Collections.emptyNavigableSet() : postings.names();
+    }
+
+    private static Collection<PostingList> select(NavigableMap<String, PostingList> index, String key,
+                                                  boolean prefix) {
+        if (prefix) {
+            return index.subMap(key, true, key + Character.MAX_VALUE, false).values();
+        }
+        PostingList postings = index.get(key);
+        return postings == null ? List.of() : List.of(postings);
+    }
+
+    private Collection<PostingList> dates(LocalDate from, LocalDate to) {
+        if (from == null) {
+            return byDate.headMap(to, true).values();
+        }
+        if (to == null) {
+            return byDate.tailMap(from, true).values();
+        }
+        return byDate.subMap(from, true, to, true).values();
+    }
+
+    private static long count(Collection<PostingList> postings) {
+        long count = 0;
+        for (PostingList posting : postings) {
+            count += posting.size();
+        }
+        return count;
+    }
+
+    private static NavigableSet<String> scan(PostingList postings, String lower, String upper, String after) {
+        NavigableSet<String> names = postings.names();
+        String from = lower;
+        boolean inclusive = true;
+        if (after != null && (from == null || after.compareTo(from) >= 0)) {
+            from = after;
+            inclusive = false;
+        }
+        if (from == null) {
+            return upper == null ? names : names.headSet(upper, false);
+        }
+        if (upper == null) {
+            return names.tailSet(from, inclusive);
+        }
+        return from.compareTo(upper) < 0
+                ? names.subSet(from, inclusive, upper, false)
+                : Collections.emptyNavigableSet();
+    }
+
+    /**
+     * Merges sorted name iterators into one sorted stream. Only the next name of every iterator is
+     * held, in a heap, so the merge costs memory per iterator rather than per name.
+     */
+    private static Stream<String> merge(List<Iterator<String>> sources) {
+        PriorityQueue<Head> heads = new PriorityQueue<>(sources.size() + 1, Comparator.comparing(Head::name));
+        for (Iterator<String> source : sources) {
+            if (source.hasNext()) {
+                heads.add(new Head(source.next(), source));
+            }
+        }
+        Iterator<String> merged = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public String next() {
+                Head head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                if (head.rest().hasNext()) {
+                    heads.add(new Head(head.rest().next(), head.rest()));
+                }
+                return head.name();
+            }
+        };
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Next name of a sorted iterator and the iterator it came from.
+     */
+    private record Head(String name, Iterator<String> rest) {
+    }
+}
@@ -0,0 +1,113 @@
+package com.file.registry.index;
+
+import static com.file.registry.constants.ApplicationConstants.FILE_NAME_SPLITTER;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+
+/**
+ * The customer, type and date a stored file name {@code <customer>_<type>_<yyyy-MM-dd><extension>}
+ * is made of, where customer and type are non-empty and ASCII alphanumeric and the date exists.
+ *
+ * <p>Names are checked in a single pass over their characters, without a regular expression or
+ * intermediate strings, so {@link #isValid} allocates nothing and {@link #parse} allocates only
+ * the key itself. Upload validation, the in-memory index and the index links all go through this
+ * class, so a name accepted on upload is always one the index can place.
+ */
+public record FileKey(String customer, String type, LocalDate date) {
+
+    private static final char SEPARATOR = FILE_NAME_SPLITTER.charAt(0);
+    private static final char DATE_SEPARATOR = '-';
+    private static final int DATE_LENGTH = "yyyy-MM-dd".length();
+    private static final int MONTH_OFFSET = 5;
+    private static final int DAY_OFFSET = 8;
+    private static final int INVALID = -1;
+
+    public static boolean isValid(String fileName, String extension) {
+        return scan(fileName, extension) != INVALID;
+    }
+
+    /**
+     * Returns the key of a file name with the given extension, or {@code null} if the name does
+     * not have the expected format.
+     */
+    public static FileKey parse(String fileName, String extension) {
+        long separators = scan(fileName, extension);
+        if (separators == INVALID) {
+            return null;
+        }
+        int typeSeparator = (int) (separators >>> Integer.SIZE);
+        int dateStart = (int) separators;
+        return new FileKey(
+                fileName.substring(0, typeSeparator),
+                fileName.substring(typeSeparator + 1, dateStart - 1),
+                LocalDate.of(
+                        number(fileName, dateStart, 4),
+                        number(fileName, dateStart + MONTH_OFFSET, 2),
+                        number(fileName, dateStart + DAY_OFFSET, 2)));
+    }
+
+    /**
+     * Returns the index of the separator after the customer in the high half and the start of the
+     * date in the low half, or {@link #INVALID}.
+     */
+    private static long scan(String fileName, String extension) {
+        if (fileName == null) {
+            return INVALID;
+        }
+        int dateEnd = fileName.length() - extension.length();
+        int dateStart = dateEnd - DATE_LENGTH;
+        if (dateStart < 4 || !fileName.startsWith(extension, dateEnd) || fileName.charAt(dateStart - 1) != SEPARATOR
+                || !isDate(fileName, dateStart)) {
+            return INVALID;
+        }
+        int typeSeparator = INVALID;
+        for (int i = 0; i < dateStart - 1; i++) {
+            char c = fileName.charAt(i);
+            if (c == SEPARATOR) {
+                if (typeSeparator != INVALID || i == 0) {
+                    return INVALID;
+                }
+                typeSeparator = i;
+            } else if (!isAlphanumeric(c)) {
+                return INVALID;
+            }
+        }
+        if (typeSeparator == INVALID || typeSeparator == dateStart - 2) {
+            return INVALID;
+        }
+        return ((long) typeSeparator << Integer.SIZE) | dateStart;
+    }
+
+    private static boolean isDate(String fileName, int start) {
+        if (fileName.charAt(start + MONTH_OFFSET - 1) != DATE_SEPARATOR
+                || fileName.charAt(start + DAY_OFFSET - 1) != DATE_SEPARATOR) {
+            return false;
+        }
+        int year = number(fileName, start, 4);
+        int month = number(fileName, start + MONTH_OFFSET, 2);
+        int day = number(fileName, start + DAY_OFFSET, 2);
+        return year >= 0 && month >= 1 && month <= 12 && day >= 1
+                && day <= Month.of(month).length(Year.isLeap(year));
+    }
+
+    /**
+     * Returns the value of {@code digits} ASCII digits, or {@link #INVALID} if any is not a digit.
+     */
+    private static int number(String fileName, int start, int digits) {
+        int value = 0;
+        for (int i = start; i < start + digits; i++) {
+            char c = fileName.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isAlphanumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+}
@@ -0,0 +1,121 @@
+package com.file.registry.index;
+
+import static com.file.registry.constants.ApplicationConstants.FILE_NAME_SPLITTER;
+
+import java.time.LocalDate;
+import java.util.function.Predicate;
+
+/**
+ * Criteria of a multi-dimensional file search; every {@code null} criterion matches any file.
+ *
+ * <p>A customer or type ending with {@value #WILDCARD} matches every key starting with the rest
+ * of the value. The date range is inclusive on both ends and may be open on either side.
+ */
+public record FileQuery(String customer, boolean customerPrefix, String type, boolean typePrefix,
+                        LocalDate from, LocalDate to) {
+
+    public static final String WILDCARD = "*";
+
+    public static FileQuery of(String customer, String type, LocalDate from, LocalDate to) {
+        return new FileQuery(stripWildcard(customer), isPrefix(customer), stripWildcard(type), isPrefix(type), from,
+                to);
+    }
+
+    public boolean isEmpty() {
+        return customer == null && type == null && from == null && to == null;
+    }
+
+    public boolean hasValidRange() {
+        return from == null || to == null || !from.isAfter(to);
+    }
+
+    /**
+     * Returns the lowest name a matching file can have, or {@code null} when unbounded. File names
+     * sort by customer, then type, then date, so an exact customer (and type) confines every
+     * posting list to one contiguous range of names.
+     */
+    String lowerBound() {
+        String prefix = namePrefix();
+        if (prefix == null) {
+            return null;
+        }
+        return hasExactKey() && from != null ? prefix + from : prefix;
+    }
+
+    /**
+     * Returns a name sorting after every matching file, or {@code null} when unbounded.
+     */
+    String upperBound() {
+        String prefix = namePrefix();
+        if (prefix == null) {
+            return null;
+        }
+        return (hasExactKey() && to != null ? prefix + to : prefix) + Character.MAX_VALUE;
+    }
+
+    /**
+     * Returns a predicate over stored file names ({@code customer_type_yyyy-MM-dd.json}) that
+     * compares the name regions in place: ISO dates order like their text, so no name is split or
+     * parsed while filtering candidates.
+     */
+    Predicate<String> matcher() {
+        String fromText = from == null ? null : from.toString();
+        String toText = to == null ? null : to.toString();
+        return fileName -> {
+            int typeStart = fileName.indexOf(FILE_NAME_SPLITTER) + 1;
+            int dateStart = fileName.indexOf(FILE_NAME_SPLITTER, typeStart) + 1;
+            if (typeStart == 0 || dateStart == 0) {
+                return false;
+            }
+            return matches(fileName, 0, typeStart - 1, customer, customerPrefix)
+                    && matches(fileName, typeStart, dateStart - 1, type, typePrefix)
+                    && (fromText == null || compare(fileName, dateStart, fromText) >= 0)
+                    && (toText == null || compare(fileName, dateStart, toText) <= 0);
+        };
+    }
+
+    private String namePrefix() {
+        if (customer == null) {
+            return null;
+        }
+        if (customerPrefix) {
+            return customer;
+        }
+        String prefix = customer + FILE_NAME_SPLITTER;
+        if (type == null) {
+            return prefix;
+        }
+        return typePrefix ? prefix + type : prefix + type + FILE_NAME_SPLITTER;
+    }
+
+    private boolean hasExactKey() {
+        return customer != null && !customerPrefix && type != null && !typePrefix;
+    }
+
+    private static boolean matches(String fileName, int start, int end, String expected, boolean prefix) {
+        if (expected == null) {
+            return true;
+        }
+        int length = end - start;
+        return (prefix ? expected.length() <= length : expected.length() == length)
+                && fileName.startsWith(expected, start);
+    }
+
+    private static int compare(String fileName, int start, String date) {
+        for (int i = 0; i < date.length(); i++) {
+            int difference = fileName.charAt(start + i) - date.charAt(i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isPrefix(String value) {
+        return value != null && value.endsWith(WILDCARD);
+    }
+
+    private static String stripWildcard(String value) {
+        return isPrefix(value) ? value.substring(0, value.length() - WILDCARD.length()) : value;
+    }
+}
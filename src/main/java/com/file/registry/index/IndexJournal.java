@@ -0,0 +1,306 @@
+package com.file.registry.index;
+
+import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.INDEX_JOURNAL_DIRECTORY;
+import static com.file.registry.constants.ApplicationConstants.TEMP_EXTENSION;
+
+import com.file.registry.exception.InternalErrorException;
+import com.file.registry.properties.StorageProperties;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Durable state of {@link FileIndex}: a compacted snapshot of all indexed file names plus a
+ * memory-mapped, append-only journal of the mutations made since that snapshot.
+ *
+ * <p>A journal record is {@code [operation:1][length:2][name:length]}. The operation byte is
+ * written last, so a record torn by a crash reads as the end of the journal. Records are
+ * idempotent set operations, which makes replaying a journal over a newer snapshot safe.
+ *
+ * <p>A full journal is {@link #rotate() rotated}: it is sealed under a second name and appends go
+ * to a fresh segment, so the snapshot can be written while mutations continue. The sealed segment
+ * is replayed before the active one until {@link #dropSealedSegment()} removes it once the
+ * snapshot covers it.
+ *
+ * <p>The class is not thread-safe; {@link FileIndex} serializes all calls, except that the sealed
+ * segment is compacted by {@link #writeSnapshot} and {@link #dropSealedSegment()} on another
+ * thread.
+ */
+@Slf4j
+@Component
+public class IndexJournal implements Closeable {
+
+    private static final String JOURNAL_FILE_NAME = "journal.log";
+    private static final String SEALED_JOURNAL_FILE_NAME = "journal.sealed.log";
+    private static final String SNAPSHOT_FILE_NAME = "snapshot.bin";
+    private static final int SNAPSHOT_MAGIC = 0x46494458;
+    private static final int RECORD_HEADER_SIZE = Byte.BYTES + Short.BYTES;
+
+    private final Path journalPath;
+    private final Path sealedPath;
+    private final Path snapshotPath;
+    private final boolean sync;
+    private final long capacity;
+    private Segment active;
+    private volatile Segment sealed;
+
+    public IndexJournal(StorageProperties storageProperties) {
+        Path directory = Paths.get(storageProperties.getPath()).resolve(INDEX_JOURNAL_DIRECTORY);
+        this.journalPath = directory.resolve(JOURNAL_FILE_NAME);
+        this.sealedPath = directory.resolve(SEALED_JOURNAL_FILE_NAME);
+        this.snapshotPath = directory.resolve(SNAPSHOT_FILE_NAME);
+        this.sync = storageProperties.getIndex().isJournalSync();
+        this.capacity = storageProperties.getIndex().getJournalSize().toBytes();
+        try {
+            Files.createDirectories(directory);
+            this.active = Segment.open(journalPath, capacity, StandardOpenOption.CREATE);
+            this.sealed = Files.exists(sealedPath) ? Segment.open(sealedPath, 0) : null;
+        } catch (IOException e) {
+            throw new InternalErrorException("Failed to open index journal: " + directory, e);
+        }
+    }
+
+    public boolean isEmpty() {
+        return active.position == 0 && sealed == null;
+    }
+
+    public boolean hasSnapshot() {
+        return Files.exists(snapshotPath);
+    }
+
+    public boolean hasSealedSegment() {
+        return sealed != null;
+    }
+
+    /**
+     * Appends a record, returning {@code false} if the journal is full and has to be rotated or
+     * compacted.
+     *
+     * @throws IOException if the record does not fit even into an empty journal
+     */
+    public boolean append(IndexOperation operation, String fileName) throws IOException {
+        byte[] name = fileName.getBytes(StandardCharsets.UTF_8);
+        if (RECORD_HEADER_SIZE + name.length > active.buffer.capacity()) {
+            throw new IOException("Index journal record is larger than the journal: " + fileName);
+        }
+        if (!active.append(operation, name)) {
+            return false;
+        }
+        if (sync) {
+            active.buffer.force();
+        }
+        return true;
+    }
+
+    /**
+     * Replays the sealed segment, if any, and then the active one.
+     */
+    public void replay(BiConsumer<IndexOperation, String> consumer) {
+        Segment segment = sealed;
+        if (segment != null) {
+            segment.replay(consumer);
+        }
+        active.replay(consumer);
+    }
+
+    public void readSnapshot(Consumer<String> consumer) throws IOException {
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (input.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Unrecognized index snapshot format: " + snapshotPath);
+            }
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                consumer.accept(input.readUTF());
+            }
+        }
+    }
+
+    /**
+     * Seals the active segment and continues in a fresh one. The sealed segment stays part of the
+     * journal until {@link #dropSealedSegment()}.
+     *
+     * @throws IllegalStateException if a sealed segment still exists
+     */
+    public void rotate() throws IOException {
+        if (sealed != null) {
+            throw new IllegalStateException("Index journal already has a sealed segment: " + sealedPath);
+        }
+        active.buffer.force();
+        Files.move(journalPath, sealedPath, StandardCopyOption.ATOMIC_MOVE);
+        Segment fresh;
+        try {
+            fresh = Segment.open(journalPath, capacity, StandardOpenOption.CREATE_NEW);
+        } catch (IOException e) {
+            Files.move(sealedPath, journalPath, StandardCopyOption.ATOMIC_MOVE);
+            throw e;
+        }
+        sealed = active;
+        active = fresh;
+    }
+
+    /**
+     * Atomically replaces the snapshot with the given file names, leaving the journal as is.
+     */
+    public void writeSnapshot(Collection<String> fileNames) throws IOException {
+        Path tempPath = snapshotPath.resolveSibling(SNAPSHOT_FILE_NAME + TEMP_EXTENSION);
+        try (OutputStream file = Files.newOutputStream(tempPath);
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(file))) {
+            output.writeInt(SNAPSHOT_MAGIC);
+            output.writeInt(fileNames.size());
+            for (String fileName : fileNames) {
+                output.writeUTF(fileName);
+            }
+        }
+        try (FileChannel snapshot = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+            snapshot.force(true);
+        }
+        Files.move(tempPath, snapshotPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        log.info("Wrote index snapshot of {} files", fileNames.size());
+    }
+
+    /**
+     * Removes the sealed segment once a snapshot covers its records.
+     */
+    public void dropSealedSegment() throws IOException {
+        Segment segment = sealed;
+        if (segment == null) {
+            return;
+        }
+        segment.channel.close();
+        Files.deleteIfExists(sealedPath);
+        sealed = null;
+    }
+
+    /**
+     * Atomically replaces the snapshot with the given file names and empties the journal.
+     */
+    public void compact(Collection<String> fileNames) throws IOException {
+        writeSnapshot(fileNames);
+        dropSealedSegment();
+        active.truncate();
+    }
+
+    @Override
+    public void close() throws IOException {
+        active.buffer.force();
+        active.channel.close();
+        Segment segment = sealed;
+        if (segment != null) {
+            segment.channel.close();
+        }
+    }
+
+    /**
+     * One memory-mapped journal file and the end of its records.
+     */
+    private static final class Segment {
+
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int position;
+
+        private Segment(FileChannel channel, MappedByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.position = findEnd();
+        }
+
+        /**
+         * Maps a journal file, growing it to {@code capacity} if it is smaller.
+         */
+        private static Segment open(Path path, long capacity, StandardOpenOption... options) throws IOException {
+            FileChannel channel = FileChannel.open(path, concat(options));
+            try {
+                long size = Math.min(Math.max(channel.size(), capacity), Integer.MAX_VALUE);
+                return new Segment(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        private static Set<StandardOpenOption> concat(StandardOpenOption... options) {
+            Set<StandardOpenOption> all = EnumSet.of(StandardOpenOption.READ, StandardOpenOption.WRITE);
+            all.addAll(Arrays.asList(options));
+            return all;
+        }
+
+        private boolean append(IndexOperation operation, byte[] name) {
+            int recordSize = RECORD_HEADER_SIZE + name.length;
+            if (position + recordSize > buffer.capacity()) {
+                return false;
+            }
+            buffer.putShort(position + Byte.BYTES, (short) name.length);
+            buffer.put(position + RECORD_HEADER_SIZE, name);
+            buffer.put(position, operation.getCode());
+            position += recordSize;
+            return true;
+        }
+
+        private void replay(BiConsumer<IndexOperation, String> consumer) {
+            int offset = 0;
+            while (offset < position) {
+                IndexOperation operation = IndexOperation.fromCode(buffer.get(offset));
+                int length = Short.toUnsignedInt(buffer.getShort(offset + Byte.BYTES));
+                byte[] name = new byte[length];
+                buffer.get(offset + RECORD_HEADER_SIZE, name);
+                consumer.accept(operation, new String(name, StandardCharsets.UTF_8));
+                offset += RECORD_HEADER_SIZE + length;
+            }
+        }
+
+        /**
+         * Zeroes the segment from its end towards its start, so an interrupted truncation still
+         * leaves a readable prefix of records instead of stale records after a zeroed head.
+         */
+        private void truncate() {
+            for (int offset = position - 1; offset >= 0; offset--) {
+                buffer.put(offset, (byte) 0);
+            }
+            position = 0;
+            buffer.force();
+        }
+
+        private int findEnd() {
+            int offset = 0;
+            while (offset + RECORD_HEADER_SIZE <= buffer.capacity()) {
+                byte code = buffer.get(offset);
+                if (code == 0) {
+                    break;
+                }
+                int length = Short.toUnsignedInt(buffer.getShort(offset + Byte.BYTES));
+                if (IndexOperation.fromCode(code) == null
+                        || offset + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+                    log.warn("Discarding corrupted index journal tail at offset {}", offset);
+                    for (int tail = offset; tail < buffer.capacity(); tail++) {
+                        buffer.put(tail, (byte) 0);
+                    }
+                    break;
+                }
+                offset += RECORD_HEADER_SIZE + length;
+            }
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.file.registry.index;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum IndexOperation {
+
+    ADD((byte) 1),
+    REMOVE((byte) 2);
+
+    private final byte code;
+
+    public static IndexOperation fromCode(byte code) {
+        for (IndexOperation operation : values()) {
+            if (operation.code == code) {
+                return operation;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,42 @@
+package com.file.registry.index;
+
+import java.util.Collections;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Sorted file names of one index key together with their count.
+ *
+ * <p>{@link ConcurrentSkipListSet#size()} walks the whole set, so the count is kept alongside
+ * to let queries pick the most selective key in constant time. Postings are only mutated under
+ * the {@link FileIndex} mutation lock; readers see the count and the names without locking.
+ */
+final class PostingList {
+
+    private final NavigableSet<String> names = new ConcurrentSkipListSet<>();
+    private volatile int size;
+
+    void add(String fileName) {
+        if (names.add(fileName)) {
+            size++;
+        }
+    }
+
+    void remove(String fileName) {
+        if (names.remove(fileName)) {
+            size--;
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    NavigableSet<String> names() {
+        return Collections.unmodifiableNavigableSet(names);
+    }
+}
@@ -1,7 +1,13 @@
 package com.file.registry.listener;
 
 import com.file.registry.exception.InternalErrorException;
+import com.file.registry.index.FileIndex;
 import com.file.registry.properties.StorageProperties;
+import com.file.registry.service.UploadJobService;
+import com.file.registry.storage.IndexLinks;
+import com.file.registry.storage.IndexScrubber;
+import com.file.registry.storage.StorageLayout;
+import com.file.registry.storage.StorageMigrator;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -14,9 +20,23 @@ import org.springframework.stereotype.Component;
 public class StorageInitListener implements ApplicationListener<ApplicationReadyEvent> {
 
     private final Path storagePath;
+    private final FileIndex fileIndex;
+    private final StorageLayout storageLayout;
+    private final IndexLinks indexLinks;
+    private final StorageMigrator storageMigrator;
+    private final IndexScrubber indexScrubber;
+    private final UploadJobService uploadJobService;
 
-    public StorageInitListener(StorageProperties storageProperties) {
+    public StorageInitListener(StorageProperties storageProperties, FileIndex fileIndex, StorageLayout storageLayout,
+                               IndexLinks indexLinks, StorageMigrator storageMigrator,
+                               IndexScrubber indexScrubber, UploadJobService uploadJobService) {
         this.storagePath = Paths.get(storageProperties.getPath());
+        this.fileIndex = fileIndex;
+        this.storageLayout = storageLayout;
+        this.indexLinks = indexLinks;
+        this.storageMigrator = storageMigrator;
+        this.indexScrubber = indexScrubber;
+        this.uploadJobService = uploadJobService;
     }
 
     @Override
@@ -26,5 +46,16 @@ public class StorageInitListener implements ApplicationListener<ApplicationReady
         } catch (IOException e) {
             throw new InternalErrorException("Failed to create storage directory: ", e);
         }
+        fileIndex.restore(storagePath);
+        if (indexLinks.isWriteBehind()) {
+            Thread.ofPlatform().name("index-links-recovery").daemon().start(indexLinks::recover);
+        }
+        if (storageLayout.isSharded()) {
+            Thread.ofPlatform().name("storage-migration").daemon().start(storageMigrator::migrate);
+        }
+        if (indexScrubber.isEnabled()) {
+            Thread.ofPlatform().name("index-scrubber").daemon().start(indexScrubber::run);
+        }
+        Thread.ofPlatform().name("upload-job-resume").daemon().start(uploadJobService::resumePendingJobs);
     }
 }
@@ -0,0 +1,161 @@
+package com.file.registry.metrics;
+
+import com.file.registry.exception.RestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Locale;
+import java.util.function.Supplier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Timers and counters of {@code FileManagementService} operations.
+ *
+ * <p>{@code file.operation} times every operation, tagged with its outcome, so conflict and
+ * not-found rates are the rates of the matching outcomes. {@code file.save.phase} splits a write
+ * into its phases. XML parsing and JSON generation are one streaming pass and cannot be timed
+ * apart, so they share the {@code convert} phase.
+ */
+@Component
+public class FileOperationMetrics {
+
+    private static final String OPERATION_TIMER = "file.operation";
+    private static final String PHASE_TIMER = "file.save.phase";
+    private static final String BLOB_REUSE_COUNTER = "file.blob.reuses";
+    private static final String UPDATE_UNCHANGED_COUNTER = "file.update.unchanged";
+
+    private final MeterRegistry registry;
+    private final Counter bytesReceived;
+    private final Counter bytesStored;
+    private final Counter bytesSent;
+
+    public FileOperationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.bytesReceived = Counter.builder("file.bytes.received")
+                .description("XML bytes received in uploads and updates")
+                .baseUnit("bytes")
+                .register(registry);
+        this.bytesStored = Counter.builder("file.bytes.stored")
+                .description("Bytes written to storage after conversion")
+                .baseUnit("bytes")
+                .register(registry);
+        this.bytesSent = Counter.builder("file.bytes.sent")
+                .description("File bytes sent in download and export responses")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public <T> T record(Operation operation, Supplier<T> action) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            T result = action.get();
+            outcome = "success";
+            return result;
+        } catch (RestException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(OPERATION_TIMER)
+                    .description("File operation latency")
+                    .tag("operation", operation.tagValue())
+                    .tag("outcome", outcome)
+                    .register(registry));
+        }
+    }
+
+    public void record(Operation operation, Runnable action) {
+        record(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public Timer.Sample startPhase() {
+        return Timer.start(registry);
+    }
+
+    public void stopPhase(Timer.Sample sample, SavePhase phase) {
+        sample.stop(Timer.builder(PHASE_TIMER)
+                .description("Latency of a phase of storing a file")
+                .tag("phase", phase.tagValue())
+                .register(registry));
+    }
+
+    public void bytesReceived(long bytes) {
+        bytesReceived.increment(bytes);
+    }
+
+    public void bytesStored(long bytes) {
+        bytesStored.increment(bytes);
+    }
+
+    public void bytesSent(long bytes) {
+        bytesSent.increment(bytes);
+    }
+
+    public void blobReused(ContentMatch match) {
+        Counter.builder(BLOB_REUSE_COUNTER)
+                .description("Writes linked to an existing deduplicated blob")
+                .tag("match", match.tagValue())
+                .register(registry)
+                .increment();
+    }
+
+    public void updateUnchanged(ContentMatch match) {
+        Counter.builder(UPDATE_UNCHANGED_COUNTER)
+                .description("Updates skipped because the file already had their content")
+                .tag("match", match.tagValue())
+                .register(registry)
+                .increment();
+    }
+
+    private static String outcomeOf(RestException e) {
+        HttpStatus status = HttpStatus.resolve(e.getStatusCode().value());
+        return status == null ? "error" : status.name().toLowerCase(Locale.ROOT);
+    }
+
+    public enum Operation {
+        UPLOAD,
+        UPDATE,
+        BATCH_UPLOAD,
+        GET,
+        DELETE,
+        LIST,
+        EXPORT;
+
+        String tagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Phases of storing a file: {@code CONVERT} parses XML and writes JSON to a temporary file,
+     * {@code COMMIT} moves it into place and records its digest, {@code INDEX} updates the index
+     * links and the in-memory index.
+     */
+    public enum SavePhase {
+        CONVERT,
+        COMMIT,
+        INDEX;
+
+        String tagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * How a write found content already stored, in a deduplicated blob or in the file it updates:
+     * {@code SOURCE} matched the hash of the uploaded XML and skipped conversion, {@code CONTENT}
+     * matched the hash of the converted JSON.
+     */
+    public enum ContentMatch {
+        SOURCE,
+        CONTENT;
+
+        String tagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
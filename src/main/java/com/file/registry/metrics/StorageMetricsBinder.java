@@ -0,0 +1,85 @@
+package com.file.registry.metrics;
+
+import com.file.registry.cache.DocumentCache;
+import com.file.registry.index.FileIndex;
+import com.file.registry.storage.IndexLinks;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gauges of the state behind the file operations: index sizes, queued index links, document cache
+ * usage and the conversion and upload job pools.
+ */
+@Component
+public class StorageMetricsBinder implements MeterBinder {
+
+    private final FileIndex fileIndex;
+    private final DocumentCache documentCache;
+    private final IndexLinks indexLinks;
+    private final ThreadPoolExecutor conversionExecutor;
+    private final ThreadPoolExecutor uploadJobExecutor;
+
+    public StorageMetricsBinder(
+            FileIndex fileIndex,
+            DocumentCache documentCache,
+            IndexLinks indexLinks,
+            @Qualifier("conversionExecutor") ThreadPoolExecutor conversionExecutor,
+            @Qualifier("uploadJobExecutor") ThreadPoolExecutor uploadJobExecutor) {
+        this.fileIndex = fileIndex;
+        this.documentCache = documentCache;
+        this.indexLinks = indexLinks;
+        this.conversionExecutor = conversionExecutor;
+        this.uploadJobExecutor = uploadJobExecutor;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("file.index.files", fileIndex, FileIndex::size)
+                .description("Files in the in-memory index")
+                .register(registry);
+        Gauge.builder("file.index.keys", fileIndex, FileIndex::customerCount)
+                .description("Distinct keys per index dimension")
+                .tag("dimension", "customer")
+                .register(registry);
+        Gauge.builder("file.index.keys", fileIndex, FileIndex::typeCount)
+                .description("Distinct keys per index dimension")
+                .tag("dimension", "type")
+                .register(registry);
+        Gauge.builder("file.index.keys", fileIndex, FileIndex::dateCount)
+                .description("Distinct keys per index dimension")
+                .tag("dimension", "date")
+                .register(registry);
+
+        if (indexLinks.isWriteBehind()) {
+            Gauge.builder("file.index.links.pending", indexLinks, IndexLinks::pendingCount)
+                    .description("Index links queued for the write-behind flush")
+                    .register(registry);
+        }
+
+        if (documentCache.isEnabled()) {
+            FunctionCounter.builder("file.cache.requests", documentCache, DocumentCache::hits)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("file.cache.requests", documentCache, DocumentCache::misses)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("file.cache.evictions", documentCache, DocumentCache::evictions)
+                    .register(registry);
+            Gauge.builder("file.cache.size", documentCache, DocumentCache::size)
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("file.cache.entries", documentCache, DocumentCache::entryCount)
+                    .register(registry);
+        }
+
+        new ExecutorServiceMetrics(conversionExecutor, "conversion", Tags.empty()).bindTo(registry);
+        new ExecutorServiceMetrics(uploadJobExecutor, "upload-jobs", Tags.empty()).bindTo(registry);
+    }
+}
@@ -1,15 +1,113 @@
 package com.file.registry.properties;
 
-import lombok.AllArgsConstructor;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 @Getter
 @Setter
-@AllArgsConstructor
+@NoArgsConstructor
 @ConfigurationProperties("app.file-storage")
 public class StorageProperties {
 
     private String path;
+    private Format format = Format.PRETTY_JSON;
+    private Layout layout = Layout.FLAT;
+    private boolean deduplication;
+    private DataSize maxBodySize = DataSize.ofGigabytes(1);
+    private Index index = new Index();
+    private Conversion conversion = new Conversion();
+    private Cache cache = new Cache();
+    private Jobs jobs = new Jobs();
+    private Scrubber scrubber = new Scrubber();
+    private History history = new History();
+
+    public StorageProperties(String path) {
+        this.path = path;
+    }
+
+    @Getter
+    @Setter
+    public static class Index {
+
+        private DataSize journalSize = DataSize.ofMegabytes(64);
+        private boolean journalSync;
+        private boolean writeBehind;
+        private Duration flushInterval = Duration.ofMillis(200);
+    }
+
+    @Getter
+    @Setter
+    public static class Conversion {
+
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private int queueCapacity = 1000;
+        private Map<String, Plan> plans = new LinkedHashMap<>();
+
+        /**
+         * Element names typed during the conversion of one document type.
+         */
+        @Getter
+        @Setter
+        public static class Plan {
+
+            private Set<String> numbers = new LinkedHashSet<>();
+            private Set<String> booleans = new LinkedHashSet<>();
+            private Set<String> arrays = new LinkedHashSet<>();
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        private boolean enabled;
+        private DataSize maxSize = DataSize.ofMegabytes(256);
+        private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+        private boolean offHeap;
+    }
+
+    @Getter
+    @Setter
+    public static class Jobs {
+
+        private int parallelism = 2;
+        private int queueCapacity = 100;
+        private int historySize = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Scrubber {
+
+        private boolean enabled;
+        private int rate = 1000;
+        private Duration interval = Duration.ofHours(1);
+    }
+
+    @Getter
+    @Setter
+    public static class History {
+
+        private boolean enabled;
+        private DataSize maxDocumentSize = DataSize.ofMegabytes(1);
+    }
+
+    public enum Format {
+        PRETTY_JSON,
+        JSON,
+        GZIP_JSON
+    }
+
+    public enum Layout {
+        FLAT,
+        SHARDED
+    }
 }
@@ -0,0 +1,190 @@
+package com.file.registry.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.file.registry.dto.StoredFile;
+import com.file.registry.index.FileQuery;
+import com.file.registry.metrics.FileOperationMetrics;
+import com.file.registry.metrics.FileOperationMetrics.Operation;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+/**
+ * Streams every document matching a {@link FileQuery} in one response, replacing a listing
+ * followed by one download per file.
+ *
+ * <p>Documents are read one at a time straight from storage and copied through a fixed-size
+ * buffer, so memory use does not depend on the number or size of the exported files and nothing
+ * is staged on disk. Exported files bypass the document cache, which a bulk read would otherwise
+ * flush. A file deleted while the export runs is skipped.
+ */
+@Slf4j
+@Service
+public class FileExportService {
+
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final String FILE_NAME_FIELD = "fileName";
+    private static final String CONTENT_FIELD = "content";
+
+    private final FileManagementService fileManagementService;
+    private final JsonFactory jsonFactory;
+    private final FileOperationMetrics metrics;
+
+    public FileExportService(
+            FileManagementService fileManagementService,
+            @Qualifier("jsonObjectMapper") ObjectMapper jsonMapper,
+            FileOperationMetrics metrics) {
+        this.fileManagementService = fileManagementService;
+        this.jsonFactory = jsonMapper.getFactory();
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the names of the files to export, validating the query before anything is written.
+     */
+    public Stream<String> matchingFiles(FileQuery query) {
+        return fileManagementService.streamFiles(query, null);
+    }
+
+    /**
+     * Writes the files as a zip archive with one {@code <name>.json} entry per document, and
+     * returns the number of exported files.
+     */
+    public int writeZip(Stream<String> fileNames, OutputStream output) throws IOException {
+        return export(fileNames, output, (files, out) -> {
+            ZipOutputStream zip = new ZipOutputStream(out);
+            zip.setLevel(Deflater.BEST_SPEED);
+            int exported = 0;
+            while (files.hasNext()) {
+                String fileName = files.next();
+                StoredFile storedFile = fileManagementService.findStoredFile(fileName);
+                try (InputStream content = open(storedFile)) {
+                    if (content == null) {
+                        continue;
+                    }
+                    ZipEntry entry = new ZipEntry(fileName);
+                    entry.setLastModifiedTime(FileTime.from(storedFile.lastModified()));
+                    zip.putNextEntry(entry);
+                    content.transferTo(zip);
+                    zip.closeEntry();
+                }
+                exported++;
+            }
+            zip.finish();
+            return exported;
+        });
+    }
+
+    /**
+     * Writes one {@code {"fileName": ..., "content": ...}} object per line, with each document
+     * re-emitted compactly token by token, and returns the number of exported files.
+     */
+    public int writeNdjson(Stream<String> fileNames, OutputStream output) throws IOException {
+        return export(fileNames, output, (files, out) -> {
+            int exported = 0;
+            try (JsonGenerator generator = jsonFactory.createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.setRootValueSeparator(null);
+                while (files.hasNext()) {
+                    String fileName = files.next();
+                    try (InputStream content = open(fileManagementService.findStoredFile(fileName))) {
+                        if (content == null) {
+                            continue;
+                        }
+                        generator.writeStartObject();
+                        generator.writeStringField(FILE_NAME_FIELD, fileName);
+                        generator.writeFieldName(CONTENT_FIELD);
+                        try (JsonParser parser = jsonFactory.createParser(content)) {
+                            parser.nextToken();
+                            generator.copyCurrentStructure(parser);
+                        }
+                        generator.writeEndObject();
+                    }
+                    generator.writeRaw('\n');
+                    exported++;
+                }
+            }
+            return exported;
+        });
+    }
+
+    private int export(Stream<String> fileNames, OutputStream output, ExportWriter writer) throws IOException {
+        CountingOutputStream counting = new CountingOutputStream(output);
+        try (fileNames) {
+            int exported = metrics.record(Operation.EXPORT, () -> {
+                try {
+                    BufferedOutputStream buffered = new BufferedOutputStream(counting, OUTPUT_BUFFER_SIZE);
+                    int count = writer.write(fileNames.iterator(), buffered);
+                    buffered.flush();
+                    return count;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            log.info("Exported {} files ({} bytes)", exported, counting.count);
+            return exported;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            metrics.bytesSent(counting.count);
+        }
+    }
+
+    /**
+     * Opens the JSON content of a file, or returns {@code null} if it was deleted after being
+     * listed.
+     */
+    private static InputStream open(StoredFile storedFile) throws IOException {
+        if (storedFile == null) {
+            return null;
+        }
+        try {
+            return storedFile.toResource().getInputStream();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ExportWriter {
+
+        int write(Iterator<String> fileNames, OutputStream output) throws IOException;
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream output) {
+            super(output);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -1,33 +1,67 @@
 package com.file.registry.service;
 
-import static com.file.registry.constants.ApplicationConstants.FILE_NAME_SPLITTER;
-import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.CUSTOMER_INDEX_NAME;
-import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.CUSTOMER_INDEX_POSITION;
-import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.DATE_INDEX_NAME;
-import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.DATE_INDEX_POSITION;
-import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.TYPE_INDEX_NAME;
-import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.TYPE_INDEX_POSITION;
 import static com.file.registry.constants.ApplicationConstants.JSON_EXTENSION;
 import static com.file.registry.constants.ApplicationConstants.XML_EXTENSION;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.file.registry.annotation.processor.FileNameValidationProcessor;
+import com.file.registry.cache.DocumentCache;
+import com.file.registry.converter.ConversionPlan;
+import com.file.registry.converter.StreamingXmlJsonConverter;
+import com.file.registry.dto.BatchUploadReport;
+import com.file.registry.dto.FileChanges;
+import com.file.registry.dto.FilePage;
+import com.file.registry.dto.FileUploadStatus;
+import com.file.registry.dto.StoredFile;
+import com.file.registry.exception.BadRequestException;
 import com.file.registry.exception.ConflictException;
 import com.file.registry.exception.InternalErrorException;
 import com.file.registry.exception.NotFoundException;
+import com.file.registry.exception.RestException;
+import com.file.registry.history.ChangeLog;
+import com.file.registry.index.FileIndex;
+import com.file.registry.index.FileKey;
+import com.file.registry.index.FileQuery;
+import com.file.registry.metrics.FileOperationMetrics;
+import com.file.registry.metrics.FileOperationMetrics.ContentMatch;
+import com.file.registry.metrics.FileOperationMetrics.Operation;
+import com.file.registry.metrics.FileOperationMetrics.SavePhase;
 import com.file.registry.properties.StorageProperties;
+import com.file.registry.storage.BlobStore;
+import com.file.registry.storage.ContentDigestStore;
+import com.file.registry.storage.FileLockManager;
+import com.file.registry.storage.GzipContent;
+import com.file.registry.storage.IndexLinks;
+import com.file.registry.storage.StorageLayout;
+import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -35,134 +69,614 @@ import org.springframework.web.multipart.MultipartFile;
 @Service
 public class FileManagementService {
 
+    public static final int MAX_PAGE_SIZE = 10_000;
+
+    private static final HexFormat HEX = HexFormat.of();
+
     private final Path storagePath;
-    private final XmlMapper xmlMapper;
-    private final ObjectMapper jsonMapper;
+    private final StorageProperties.Format storageFormat;
+    private final long maxBodySize;
+    private final StreamingXmlJsonConverter xmlJsonConverter;
+    private final Map<String, ConversionPlan> conversionPlans;
+    private final FileIndex fileIndex;
+    private final Executor conversionExecutor;
+    private final ContentDigestStore contentDigestStore;
+    private final StorageLayout storageLayout;
+    private final IndexLinks indexLinks;
+    private final BlobStore blobStore;
+    private final DocumentCache documentCache;
+    private final ChangeLog changeLog;
+    private final FileLockManager fileLockManager;
+    private final FileOperationMetrics metrics;
 
     public FileManagementService(
-            XmlMapper xmlMapper,
             StorageProperties storageProperties,
-            @Qualifier("jsonObjectMapper") ObjectMapper jsonMapper) {
+            StreamingXmlJsonConverter xmlJsonConverter,
+            FileIndex fileIndex,
+            @Qualifier("conversionExecutor") Executor conversionExecutor,
+            ContentDigestStore contentDigestStore,
+            StorageLayout storageLayout,
+            IndexLinks indexLinks,
+            BlobStore blobStore,
+            DocumentCache documentCache,
+            ChangeLog changeLog,
+            FileLockManager fileLockManager,
+            FileOperationMetrics metrics) {
         this.storagePath = Paths.get(storageProperties.getPath());
-        this.xmlMapper = xmlMapper;
-        this.jsonMapper = jsonMapper;
+        this.storageFormat = storageProperties.getFormat();
+        this.maxBodySize = storageProperties.getMaxBodySize().toBytes();
+        this.xmlJsonConverter = xmlJsonConverter;
+        this.conversionPlans = compilePlans(storageProperties.getConversion().getPlans());
+        this.fileIndex = fileIndex;
+        this.conversionExecutor = conversionExecutor;
+        this.contentDigestStore = contentDigestStore;
+        this.storageLayout = storageLayout;
+        this.indexLinks = indexLinks;
+        this.blobStore = blobStore;
+        this.documentCache = documentCache;
+        this.changeLog = changeLog;
+        this.fileLockManager = fileLockManager;
+        this.metrics = metrics;
     }
 
     public Resource upload(MultipartFile file) {
-        String fileName =
-                file.getOriginalFilename().replaceAll(XML_EXTENSION, JSON_EXTENSION);
-        Path filePath = storagePath.resolve(fileName);
+        return upload(file.getOriginalFilename(), XmlSource.of(file));
+    }
 
-        if (Files.exists(filePath)) {
-            throw new ConflictException("Failed: file with provided name already exist!");
-        }
-        log.info("Successfully uploaded file: {}", fileName);
-        return save(file, fileName);
+    /**
+     * Uploads XML read straight from a request body, which is converted while it arrives.
+     */
+    public Resource upload(final String fileName, InputStream body) {
+        return upload(requireValidFileName(fileName), XmlSource.of(body, maxBodySize));
+    }
+
+    private Resource upload(final String originalName, XmlSource source) {
+        String fileName = toJsonFileName(originalName);
+        return metrics.record(Operation.UPLOAD, () -> fileLockManager.withLock(fileName, () -> {
+            if (Files.exists(storageLayout.locate(fileName))) {
+                throw new ConflictException("Failed: file with provided name already exist!");
+            }
+            log.info("Successfully uploaded file: {}", fileName);
+            return save(source, fileName);
+        }));
     }
 
     public Resource update(MultipartFile file) {
-        String fileName =
-                file.getOriginalFilename().replaceAll(XML_EXTENSION, JSON_EXTENSION);
-        log.info("Successfully updated file: {}", fileName);
-        return save(file, fileName);
+        return update(file.getOriginalFilename(), XmlSource.of(file));
+    }
+
+    /**
+     * Updates a file with XML read straight from a request body, which is converted while it
+     * arrives.
+     */
+    public Resource update(final String fileName, InputStream body) {
+        return update(requireValidFileName(fileName), XmlSource.of(body, maxBodySize));
+    }
+
+    private Resource update(final String originalName, XmlSource source) {
+        String fileName = toJsonFileName(originalName);
+        return metrics.record(Operation.UPDATE, () -> fileLockManager.withLock(fileName, () -> {
+            Path filePath = storageLayout.locate(fileName);
+            log.info("Successfully updated file: {}", fileName);
+            return Files.exists(filePath) ? replace(source, fileName, filePath) : save(source, fileName);
+        }));
+    }
+
+    /**
+     * Returns the JSON Patch between two versions of a file; see {@link ChangeLog#diff}.
+     */
+    public FileChanges getChanges(final String fileName, final Integer from, final Integer to) {
+        if (!changeLog.isEnabled()) {
+            throw new NotFoundException("Change history is not enabled");
+        }
+        String jsonFileName = toJsonFileName(fileName);
+        return metrics.record(Operation.GET, () -> fileLockManager.withLock(jsonFileName, () -> {
+            Path filePath = storageLayout.locate(jsonFileName);
+            if (!Files.exists(filePath)) {
+                throw new NotFoundException("File not found: " + fileName);
+            }
+            try {
+                return changeLog.diff(jsonFileName, readStoredFile(filePath), from, to);
+            } catch (IOException e) {
+                log.error("Failed to read change log of file: {}", fileName, e);
+                throw new InternalErrorException("Failed to read change log of file: " + fileName, e);
+            }
+        }));
+    }
+
+    public BatchUploadReport uploadBatch(List<MultipartFile> files) {
+        return metrics.record(Operation.BATCH_UPLOAD, () -> storeBatch(files));
     }
 
     public Resource getByName(final String fileName) {
-        Path filePath =
-                storagePath.resolve(fileName.replaceAll(XML_EXTENSION, JSON_EXTENSION));
+        return getStoredFile(fileName).toResource();
+    }
 
-        if (!Files.exists(filePath)) {
-            throw new NotFoundException("File not found: " + fileName);
+    public StoredFile getStoredFile(final String fileName) {
+        return metrics.record(Operation.GET, () -> readOrLoad(fileName));
+    }
+
+    /**
+     * Returns a stored file by its JSON name for a bulk read: served from the document cache if
+     * present but never added to it. Returns {@code null} if the file no longer exists.
+     */
+    public StoredFile findStoredFile(final String jsonFileName) {
+        try {
+            return read(jsonFileName, false);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.error("Failed to read file: {}", jsonFileName, e);
+            throw new InternalErrorException("Failed to read file: " + jsonFileName, e);
         }
-        return new FileSystemResource(filePath);
     }
 
     public List<String> getFilesByDate(final LocalDate date) {
-        Path dateDirectory = storagePath.resolve(DATE_INDEX_NAME).resolve(date.toString());
-        return getFilesByDirectory(DATE_INDEX_NAME, dateDirectory);
+        return metrics.record(Operation.LIST, () -> fileIndex.findByDate(date));
+    }
+
+    public FilePage getFilesByDate(final LocalDate date, final String cursor, final int limit) {
+        return metrics.record(Operation.LIST, () -> page(fileIndex.dateFiles(date), cursor, limit));
+    }
+
+    /**
+     * Returns one page of the files dated within {@code [from, to]}, ordered by date and then name.
+     */
+    public FilePage getFilesByDateRange(final LocalDate from, final LocalDate to, final String cursor,
+                                        final int limit) {
+        return metrics.record(Operation.LIST, () -> page(dateRange(from, to, cursor).iterator(), limit));
     }
 
     public List<String> getFilesByCustomer(final String customerName) {
-        Path customerDirectory = storagePath.resolve(CUSTOMER_INDEX_NAME).resolve(customerName);
-        return getFilesByDirectory(CUSTOMER_INDEX_NAME, customerDirectory);
+        return metrics.record(Operation.LIST, () -> fileIndex.findByCustomer(customerName));
+    }
+
+    public FilePage getFilesByCustomer(final String customerName, final String cursor, final int limit) {
+        return metrics.record(Operation.LIST, () -> page(fileIndex.customerFiles(customerName), cursor, limit));
     }
 
     public List<String> getFilesByType(final String type) {
-        Path typeDirectory = storagePath.resolve(TYPE_INDEX_NAME).resolve(type);
-        return getFilesByDirectory(TYPE_INDEX_NAME, typeDirectory);
+        return metrics.record(Operation.LIST, () -> fileIndex.findByType(type));
+    }
+
+    public FilePage getFilesByType(final String type, final String cursor, final int limit) {
+        return metrics.record(Operation.LIST, () -> page(fileIndex.typeFiles(type), cursor, limit));
+    }
+
+    /**
+     * Streams the files of a date in index order, starting after {@code cursor} if given. The
+     * stream reads the index directly, so memory use does not depend on the number of files.
+     */
+    public Stream<String> streamFilesByDate(final LocalDate date, final String cursor) {
+        return metrics.record(Operation.LIST, () -> after(fileIndex.dateFiles(date), cursor).stream());
+    }
+
+    public Stream<String> streamFilesByDateRange(final LocalDate from, final LocalDate to, final String cursor) {
+        return metrics.record(Operation.LIST, () -> dateRange(from, to, cursor));
+    }
+
+    public Stream<String> streamFilesByCustomer(final String customerName, final String cursor) {
+        return metrics.record(Operation.LIST, () -> after(fileIndex.customerFiles(customerName), cursor).stream());
+    }
+
+    public Stream<String> streamFilesByType(final String type, final String cursor) {
+        return metrics.record(Operation.LIST, () -> after(fileIndex.typeFiles(type), cursor).stream());
+    }
+
+    /**
+     * Returns one page of the files matching all criteria of {@code query}, sorted by name. See
+     * {@link FileIndex#query} for how the criteria are evaluated.
+     */
+    public FilePage findFiles(final FileQuery query, final String cursor, final int limit) {
+        return metrics.record(Operation.LIST, () -> {
+            try (Stream<String> files = query(query, cursor)) {
+                return page(files.iterator(), limit);
+            }
+        });
+    }
+
+    public Stream<String> streamFiles(final FileQuery query, final String cursor) {
+        return metrics.record(Operation.LIST, () -> query(query, cursor));
     }
 
     public void delete(final String fileName) {
-        Path filePath =
-                storagePath.resolve(fileName.replace(XML_EXTENSION, JSON_EXTENSION));
+        String jsonFileName = toJsonFileName(fileName);
+
+        metrics.record(Operation.DELETE, () -> fileLockManager.withLock(jsonFileName, () -> {
+            Path filePath = storageLayout.locate(jsonFileName);
+            if (!Files.exists(filePath)) {
+                throw new NotFoundException("File not found: " + fileName);
+            }
+            try {
+                final String contentHash = blobStore.isEnabled() ? contentDigestStore.read(filePath) : null;
+                Files.delete(filePath);
+                indexLinks.unlink(jsonFileName);
+                documentCache.invalidate(jsonFileName);
+                contentDigestStore.delete(filePath);
+                changeLog.delete(jsonFileName);
+                if (contentHash != null) {
+                    blobStore.release(contentHash);
+                }
+                fileIndex.remove(jsonFileName);
+                log.info("Successfully deleted file: {}", fileName);
+            } catch (IOException e) {
+                log.error("Failed to delete file: {}", fileName, e);
+                throw new InternalErrorException("Failed to delete file: " + fileName, e);
+            }
+        }));
+    }
+
+    private static FilePage page(NavigableSet<String> files, String cursor, int limit) {
+        return page(after(files, cursor).iterator(), limit);
+    }
+
+    private static FilePage page(Iterator<String> iterator, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Page limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<String> page = new ArrayList<>();
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return new FilePage(page, iterator.hasNext() ? FilePage.encodeCursor(page.getLast()) : null);
+    }
+
+    private static NavigableSet<String> after(NavigableSet<String> files, String cursor) {
+        return cursor == null ? files : files.tailSet(decodeCursor(cursor), false);
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return FilePage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private Stream<String> dateRange(LocalDate from, LocalDate to, String cursor) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("Date range start must not be after its end");
+        }
+        String after = cursor == null ? null : decodeCursor(cursor);
+        try {
+            return fileIndex.dateRangeFiles(from, to, after);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private Stream<String> query(FileQuery query, String cursor) {
+        if (query.isEmpty()) {
+            throw new BadRequestException("At least one of customer, type, from or to is required");
+        }
+        if (!query.hasValidRange()) {
+            throw new BadRequestException("Date range start must not be after its end");
+        }
+        return fileIndex.query(query, cursor == null ? null : decodeCursor(cursor));
+    }
 
-        if (!Files.exists(filePath)) {
+    private BatchUploadReport storeBatch(List<MultipartFile> files) {
+        Set<String> claimedNames = new HashSet<>();
+        List<CompletableFuture<FileUploadStatus>> conversions = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            conversions.add(claimedNames.add(String.valueOf(file.getOriginalFilename()))
+                    ? CompletableFuture.supplyAsync(() -> convertBatchFile(file), conversionExecutor)
+                    : CompletableFuture.completedFuture(new FileUploadStatus(file.getOriginalFilename(),
+                            HttpStatus.CONFLICT.value(), "Failed: file name is repeated in the batch!")));
+        }
+        BatchUploadReport report = BatchUploadReport.of(conversions.stream()
+                .map(CompletableFuture::join)
+                .toList());
+
+        log.info("Batch upload stored {} of {} files", report.succeeded(), report.total());
+        return report;
+    }
+
+    private StoredFile readOrLoad(final String fileName) {
+        try {
+            return read(toJsonFileName(fileName), true);
+        } catch (NoSuchFileException e) {
             throw new NotFoundException("File not found: " + fileName);
+        } catch (IOException e) {
+            log.error("Failed to read file: {}", fileName, e);
+            throw new InternalErrorException("Failed to read file: " + fileName, e);
         }
+    }
+
+    private StoredFile read(final String jsonFileName, final boolean cacheable) throws IOException {
+        StoredFile cached = documentCache.get(jsonFileName);
+        if (cached != null) {
+            return cached;
+        }
+        Path filePath = storageLayout.locate(jsonFileName);
+        try {
+            return load(filePath, cacheable);
+        } catch (NoSuchFileException e) {
+            // the layout migration may have moved the file after it was located
+            Path movedPath = storageLayout.locate(jsonFileName);
+            if (movedPath.equals(filePath)) {
+                throw e;
+            }
+            return load(movedPath, cacheable);
+        }
+    }
+
+    private StoredFile load(Path filePath, boolean cacheable) throws IOException {
+        long stamp = documentCache.stamp();
+        StoredFile storedFile = readStoredFile(filePath);
+        return cacheable && documentCache.accepts(storedFile.length())
+                ? documentCache.put(storedFile, Files.readAllBytes(filePath), stamp)
+                : storedFile;
+    }
+
+    private FileUploadStatus convertBatchFile(MultipartFile file) {
+        String originalName = file.getOriginalFilename();
         try {
-            Files.delete(filePath);
-            log.info("Successfully deleted file: {}", fileName);
+            if (file.isEmpty() || !FileNameValidationProcessor.isValidFileName(originalName)) {
+                return new FileUploadStatus(originalName, HttpStatus.BAD_REQUEST.value(),
+                        "Invalid file name format. Expected: customer_type_yyyy-MM-dd.xml");
+            }
+            String fileName = toJsonFileName(originalName);
+            fileLockManager.withLock(fileName, () -> {
+                if (Files.exists(storageLayout.locate(fileName))) {
+                    throw new ConflictException("Failed: file with provided name already exist!");
+                }
+                store(XmlSource.of(file), fileName);
+            });
+            return new FileUploadStatus(originalName, HttpStatus.CREATED.value(), null);
+        } catch (RestException e) {
+            return new FileUploadStatus(originalName, e.getStatusCode().value(), e.getReason());
+        }
+    }
+
+    /**
+     * Swaps a trailing {@code .xml} for {@code .json} and returns other names unchanged. A suffix
+     * check, since a customer or type may itself end with {@code xml}.
+     */
+    private static String toJsonFileName(String fileName) {
+        return fileName.endsWith(XML_EXTENSION)
+                ? fileName.substring(0, fileName.length() - XML_EXTENSION.length()) + JSON_EXTENSION
+                : fileName;
+    }
+
+    private static String requireValidFileName(String fileName) {
+        if (!FileNameValidationProcessor.isValidFileName(fileName)) {
+            throw new BadRequestException("Invalid file name format. Expected: customer_type_yyyy-MM-dd.xml");
+        }
+        return fileName;
+    }
+
+    private Resource save(XmlSource source, final String fileName) {
+        Path path = store(source, fileName);
+        try {
+            return readStoredFile(path).toResource();
+        } catch (IOException e) {
+            throw new InternalErrorException("Failed to read file: " + fileName, e);
+        }
+    }
+
+    private Path store(XmlSource source, final String fileName) {
+        Path path = writeDataFile(source, fileName);
+        index(fileName, path);
+        return path;
+    }
+
+    /**
+     * Replaces the content of an existing file. An update whose source the file was converted
+     * from is skipped without converting it, and one that converts to the stored content without
+     * writing it. A multipart source is only read up front to hash it if the file records the
+     * source it was converted from; otherwise it is hashed while it is converted. The index links
+     * and the index already cover the file and are left alone. A change is recorded in the change
+     * log if it is enabled.
+     */
+    private Resource replace(XmlSource source, final String fileName, Path filePath) {
+        try {
+            StoredFile previous = readStoredFile(filePath);
+            String storedSource = contentDigestStore.readSource(filePath);
+            if (storedSource != null
+                    && storedSource.equals(sourceKey(source.hashSource(), conversionPlan(fileName)))) {
+                metrics.updateUnchanged(ContentMatch.SOURCE);
+                return previous.toResource();
+            }
+            JsonNode previousContent = changeLog.snapshot(previous);
+            Path path = writeDataFile(source, fileName);
+            if (path == null) {
+                return previous.toResource();
+            }
+            StoredFile current = readStoredFile(path);
+            if (changeLog.isEnabled()) {
+                changeLog.record(fileName, previousContent, changeLog.snapshot(current));
+            }
+            if (!fileIndex.contains(fileName)) {
+                index(fileName, path);
+            }
+            return current.toResource();
         } catch (IOException e) {
-            log.error("Failed to delete file: {}", fileName, e);
-            throw new InternalErrorException("Failed to delete file: " + fileName, e);
+            log.error("Failed to update file: {}", fileName, e);
+            throw new InternalErrorException("Failed to update file: " + fileName, e);
+        }
+    }
+
+    private void index(String fileName, Path path) {
+        Timer.Sample index = metrics.startPhase();
+        indexLinks.link(fileName, path);
+        fileIndex.add(fileName);
+        metrics.stopPhase(index, SavePhase.INDEX);
+    }
+
+    /**
+     * Reads the validators of a file. They are read from the path one after another, so they are
+     * read again if the file was replaced in between.
+     */
+    private StoredFile readStoredFile(Path filePath) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+        while (true) {
+            String etag = contentDigestStore.read(filePath);
+            long decodedLength = GzipContent.decodedLength(filePath);
+            BasicFileAttributes current = Files.readAttributes(filePath, BasicFileAttributes.class);
+            if (ContentDigestStore.isSameFile(attributes, current)) {
+                Object fileKey = attributes.fileKey();
+                Path blob = blobStore.isEnabled() && fileKey != null ? blobStore.find(etag, fileKey) : null;
+                return new StoredFile(filePath, attributes.size(), attributes.lastModifiedTime().toInstant(),
+                        etag, decodedLength, fileKey, blob);
+            }
+            attributes = current;
         }
     }
 
-    private static List<String> getFilesByDirectory(final String searchIndex, Path targetDirectory) {
-        if (!Files.exists(targetDirectory)) {
-            log.info("Files by provided index is not found!");
-            return List.of();
+    /**
+     * Converts the source into the file and returns its path, or {@code null} if the file already
+     * had the converted content, in which case only the source is recorded with its digest.
+     */
+    private Path writeDataFile(XmlSource source, final String fileName) {
+        if (blobStore.isEnabled()) {
+            return writeBlob(source, fileName);
         }
+        Path tempPath = null;
+        try {
+            Timer.Sample convert = metrics.startPhase();
+            final ConversionPlan plan = conversionPlan(fileName);
+            tempPath = StorageLayout.createTempFile(storagePath, fileName);
+            final byte[] digest = convert(source.open(), tempPath, plan);
+            metrics.stopPhase(convert, SavePhase.CONVERT);
+            metrics.bytesReceived(source.size());
+
+            Path filePath = storageLayout.locate(fileName);
+            String sourceKey = sourceKey(source.sourceHash(), plan);
+            if (Files.exists(filePath) && HEX.formatHex(digest).equals(contentDigestStore.read(filePath))) {
+                deleteTempFile(tempPath);
+                contentDigestStore.write(filePath, digest, sourceKey);
+                metrics.updateUnchanged(ContentMatch.CONTENT);
+                return null;
+            }
+            metrics.bytesStored(Files.size(tempPath));
 
-        try (Stream<Path> stream = Files.list(targetDirectory)) {
-            return stream.filter(Files::isRegularFile)
-                    .map(path -> path.getFileName().toString())
-                    .toList();
+            final Timer.Sample commit = metrics.startPhase();
+            Files.createDirectories(filePath.getParent());
+            Path path = Files.move(tempPath, filePath,
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            documentCache.invalidate(fileName);
+            contentDigestStore.write(path, digest, sourceKey);
+            metrics.stopPhase(commit, SavePhase.COMMIT);
+            return path;
+        } catch (RestException e) {
+            deleteTempFile(tempPath);
+            throw e;
         } catch (IOException e) {
-            log.error("Failed to list files by index: {}", searchIndex, e);
-            throw new InternalErrorException("Failed to get files by index: " + searchIndex, e);
+            log.error("Failed to updated file: {}", fileName, e);
+            deleteTempFile(tempPath);
+            throw new InternalErrorException("Failed to process file: ", e);
         }
     }
 
-    private Resource save(MultipartFile file, final String fileName) {
+    /**
+     * Stores the file as a link to a deduplicated blob. An upload seen before is linked without
+     * converting it; otherwise it is converted and linked to an identical blob if one exists. The
+     * blob the name linked to before is released. A request body can only be read once, so its
+     * source hash is computed while it is converted and only the content match applies. Returns
+     * {@code null} if the name already linked to the resulting blob.
+     */
+    private Path writeBlob(XmlSource source, final String fileName) {
+        Path tempPath = null;
         try {
-            JsonNode xmlTree = xmlMapper.readTree(file.getInputStream());
-            String jsonContent =
-                    jsonMapper.writerWithDefaultPrettyPrinter().writeValueAsString(xmlTree);
-
-            Path jsonPath = storagePath.resolve(fileName);
-            Path path = Files.writeString(jsonPath, jsonContent);
-            createFileIndexStructure(fileName, path);
-            return new FileSystemResource(path);
+            Timer.Sample convert = metrics.startPhase();
+            final ConversionPlan plan = conversionPlan(fileName);
+            String sourceHash = sourceKey(source.hashSource(), plan);
+            Path filePath = storageLayout.locate(fileName);
+            Files.createDirectories(filePath.getParent());
+            final String previousHash = Files.exists(filePath) ? contentDigestStore.read(filePath) : null;
+
+            String contentHash = sourceHash == null ? null : blobStore.linkSource(sourceHash, filePath);
+            if (contentHash != null) {
+                metrics.blobReused(ContentMatch.SOURCE);
+            } else {
+                tempPath = StorageLayout.createTempFile(storagePath, fileName);
+                contentHash = HEX.formatHex(convert(source.open(), tempPath, plan));
+                if (sourceHash == null) {
+                    sourceHash = sourceKey(source.sourceHash(), plan);
+                }
+                if (contentHash.equals(previousHash)) {
+                    deleteTempFile(tempPath);
+                    metrics.stopPhase(convert, SavePhase.CONVERT);
+                    metrics.bytesReceived(source.size());
+                    contentDigestStore.write(filePath, HEX.parseHex(contentHash), sourceHash);
+                    metrics.updateUnchanged(ContentMatch.CONTENT);
+                    return null;
+                }
+                long size = Files.size(tempPath);
+                if (blobStore.store(tempPath, contentHash, sourceHash, filePath)) {
+                    metrics.blobReused(ContentMatch.CONTENT);
+                } else {
+                    metrics.bytesStored(size);
+                }
+            }
+            metrics.stopPhase(convert, SavePhase.CONVERT);
+            metrics.bytesReceived(source.size());
+
+            final Timer.Sample commit = metrics.startPhase();
+            documentCache.invalidate(fileName);
+            contentDigestStore.write(filePath, HEX.parseHex(contentHash), sourceHash);
+            if (previousHash != null && !previousHash.equals(contentHash)) {
+                blobStore.release(previousHash);
+            }
+            metrics.stopPhase(commit, SavePhase.COMMIT);
+            return filePath;
+        } catch (RestException e) {
+            deleteTempFile(tempPath);
+            throw e;
         } catch (IOException e) {
             log.error("Failed to updated file: {}", fileName, e);
+            deleteTempFile(tempPath);
             throw new InternalErrorException("Failed to process file: ", e);
         }
     }
 
-    private void createFileIndexStructure(String fileName, Path originPath) {
-        String base = fileName.substring(0, fileName.length() - JSON_EXTENSION.length());
-        String[] parts = base.split(FILE_NAME_SPLITTER);
+    /**
+     * Returns the plan of the document type in the file name, or the untyped plan.
+     */
+    private ConversionPlan conversionPlan(String fileName) {
+        if (conversionPlans.isEmpty()) {
+            return ConversionPlan.UNTYPED;
+        }
+        FileKey key = FileKey.parse(fileName, JSON_EXTENSION);
+        return key == null ? ConversionPlan.UNTYPED : conversionPlans.getOrDefault(key.type(), ConversionPlan.UNTYPED);
+    }
+
+    /**
+     * Qualifies a source hash with the plan it is converted by, so the same XML stored as
+     * different types, or under a changed plan, never shares a source alias.
+     */
+    private static String sourceKey(String sourceHash, ConversionPlan plan) {
+        return sourceHash == null || plan.isUntyped() ? sourceHash : sourceHash + "-" + plan.id();
+    }
 
-        String customer = parts[CUSTOMER_INDEX_POSITION];
-        String type = parts[TYPE_INDEX_POSITION];
-        String date = parts[DATE_INDEX_POSITION];
+    private byte[] convert(InputStream input, Path target, ConversionPlan plan) throws IOException {
+        MessageDigest digest = ContentDigestStore.newDigest();
+        try (InputStream xml = input;
+                OutputStream stored = new DigestOutputStream(Files.newOutputStream(target), digest);
+                OutputStream json = storageFormat == StorageProperties.Format.GZIP_JSON
+                        ? GzipContent.encode(stored)
+                        : stored) {
+            xmlJsonConverter.convert(xml, json, storageFormat == StorageProperties.Format.PRETTY_JSON, plan);
+        }
+        return digest.digest();
+    }
 
-        createSymlink(storagePath.resolve(CUSTOMER_INDEX_NAME).resolve(customer), fileName,
-                originPath);
-        createSymlink(storagePath.resolve(TYPE_INDEX_NAME).resolve(type), fileName, originPath);
-        createSymlink(storagePath.resolve(DATE_INDEX_NAME).resolve(date), fileName, originPath);
+    private static Map<String, ConversionPlan> compilePlans(Map<String, StorageProperties.Conversion.Plan> plans) {
+        Map<String, ConversionPlan> compiled = new HashMap<>();
+        plans.forEach((type, plan) -> compiled.put(type,
+                ConversionPlan.of(plan.getNumbers(), plan.getBooleans(), plan.getArrays())));
+        return compiled;
     }
 
-    private void createSymlink(Path directory, String fileName, Path originPath) {
+    private static void deleteTempFile(Path tempPath) {
+        if (tempPath == null) {
+            return;
+        }
         try {
-            Files.createDirectories(directory);
-            Path link = directory.resolve(fileName);
-
-            Files.deleteIfExists(link);
-            Files.createSymbolicLink(link, originPath);
+            Files.deleteIfExists(tempPath);
         } catch (IOException e) {
-            throw new InternalErrorException("Failed to create symlink: " + directory, e);
+            log.warn("Failed to delete temporary file: {}", tempPath, e);
         }
     }
 }
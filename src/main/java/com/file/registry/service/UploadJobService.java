@@ -0,0 +1,295 @@
+package com.file.registry.service;
+
+import static com.file.registry.constants.ApplicationConstants.TEMP_EXTENSION;
+
+import com.file.registry.dto.UploadJob;
+import com.file.registry.exception.InternalErrorException;
+import com.file.registry.exception.NotFoundException;
+import com.file.registry.exception.RestException;
+import com.file.registry.exception.TooManyRequestsException;
+import com.file.registry.properties.StorageProperties;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Runs uploads and updates in the background so the request returns as soon as the raw XML is
+ * persisted.
+ *
+ * <p>Each job keeps its upload in {@code incoming/<type>/<job id>/<file name>} until it has been
+ * processed, so jobs accepted before a restart are resumed by {@link #resumePendingJobs()}. Jobs
+ * run on a bounded pool; when its queue is full, new jobs are rejected instead of piling up. The
+ * state of the last {@code history-size} finished jobs is kept in memory for polling.
+ *
+ * <p>Jobs for the same file name run one at a time, in the order they were accepted, so the last
+ * accepted update is the one that stays. A job accepted while an earlier job for its name is
+ * queued or running is parked behind it instead of being queued on the pool, and the worker that
+ * finishes the earlier job runs it next. Parked jobs count against the queue capacity.
+ */
+@Slf4j
+@Service
+public class UploadJobService {
+
+    public static final String INCOMING_DIRECTORY = "incoming";
+
+    private static final long RESUME_BACKOFF_MILLIS = 100;
+
+    private final Path incomingPath;
+    private final FileManagementService fileManagementService;
+    private final ThreadPoolExecutor uploadJobExecutor;
+    private final int historySize;
+    private final Map<String, UploadJob> jobs = new ConcurrentHashMap<>();
+    private final Queue<String> finishedJobs = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger finishedCount = new AtomicInteger();
+    private final Map<String, Queue<Runnable>> lanes = new HashMap<>();
+    private int parkedCount;
+
+    public UploadJobService(
+            StorageProperties storageProperties,
+            FileManagementService fileManagementService,
+            @Qualifier("uploadJobExecutor") ThreadPoolExecutor uploadJobExecutor) {
+        this.incomingPath = Paths.get(storageProperties.getPath()).resolve(INCOMING_DIRECTORY);
+        this.fileManagementService = fileManagementService;
+        this.uploadJobExecutor = uploadJobExecutor;
+        this.historySize = storageProperties.getJobs().getHistorySize();
+    }
+
+    /**
+     * Persists the upload and queues it for processing.
+     *
+     * @throws TooManyRequestsException if the job queue is full
+     */
+    public UploadJob submit(MultipartFile file, UploadJob.Type type) {
+        if (uploadJobExecutor.getQueue().remainingCapacity() <= parkedCount()) {
+            throw queueFull();
+        }
+        UploadJob job = UploadJob.queued(UUID.randomUUID().toString(), file.getOriginalFilename(), type);
+        Path upload = persist(job, file);
+        jobs.put(job.id(), job);
+        try {
+            dispatch(job, upload);
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id());
+            deleteJobDirectory(upload.getParent());
+            throw queueFull();
+        }
+        log.info("Queued {} job {} for file: {}", job.type(), job.id(), job.fileName());
+        return job;
+    }
+
+    public UploadJob getJob(String jobId) {
+        UploadJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new NotFoundException("Job not found: " + jobId);
+        }
+        return job;
+    }
+
+    /**
+     * Queues the uploads a previous run accepted but did not finish, oldest first so jobs for the
+     * same file name keep their order. Waits for queue space instead of rejecting, and returns the
+     * number of resumed jobs.
+     */
+    public int resumePendingJobs() {
+        List<PendingUpload> pending = new ArrayList<>();
+        for (UploadJob.Type type : UploadJob.Type.values()) {
+            Path typePath = incomingPath.resolve(type.name().toLowerCase(Locale.ROOT));
+            if (!Files.isDirectory(typePath)) {
+                continue;
+            }
+            for (Path jobDirectory : list(typePath)) {
+                Optional<Path> upload = list(jobDirectory).stream()
+                        .filter(path -> !path.getFileName().toString().endsWith(TEMP_EXTENSION))
+                        .findFirst();
+                if (upload.isEmpty()) {
+                    deleteJobDirectory(jobDirectory);
+                    continue;
+                }
+                UploadJob job = UploadJob.queued(jobDirectory.getFileName().toString(),
+                        upload.get().getFileName().toString(), type);
+                pending.add(new PendingUpload(job, upload.get(), lastModified(upload.get())));
+            }
+        }
+        pending.sort(Comparator.comparing(PendingUpload::acceptedAt));
+        for (PendingUpload upload : pending) {
+            jobs.put(upload.job().id(), upload.job());
+            enqueue(upload.job(), upload.path());
+        }
+        if (!pending.isEmpty()) {
+            log.info("Resumed {} pending upload jobs", pending.size());
+        }
+        return pending.size();
+    }
+
+    private void enqueue(UploadJob job, Path upload) {
+        while (true) {
+            try {
+                dispatch(job, upload);
+                return;
+            } catch (RejectedExecutionException e) {
+                if (uploadJobExecutor.isShutdown()) {
+                    return;
+                }
+                sleep();
+            }
+        }
+    }
+
+    /**
+     * Queues the job on the pool, or parks it behind the earlier job for the same file name that
+     * is still queued or running.
+     *
+     * @throws RejectedExecutionException if the pool rejects the job
+     */
+    private void dispatch(UploadJob job, Path upload) {
+        Runnable task = () -> run(job, upload);
+        synchronized (lanes) {
+            Queue<Runnable> lane = lanes.get(job.fileName());
+            if (lane != null) {
+                lane.add(task);
+                parkedCount++;
+                return;
+            }
+            uploadJobExecutor.execute(() -> runLane(job.fileName(), task));
+            lanes.put(job.fileName(), new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Runs the job, then the jobs parked behind it for the same file name until none are left.
+     */
+    private void runLane(String fileName, Runnable task) {
+        Runnable next = task;
+        while (next != null) {
+            next.run();
+            synchronized (lanes) {
+                next = lanes.get(fileName).poll();
+                if (next == null) {
+                    lanes.remove(fileName);
+                } else {
+                    parkedCount--;
+                }
+            }
+        }
+    }
+
+    private int parkedCount() {
+        synchronized (lanes) {
+            return parkedCount;
+        }
+    }
+
+    private void run(UploadJob job, Path upload) {
+        jobs.put(job.id(), job.running());
+        UploadJob result;
+        try {
+            IncomingUpload file = new IncomingUpload(upload);
+            if (job.type() == UploadJob.Type.UPLOAD) {
+                fileManagementService.upload(file);
+            } else {
+                fileManagementService.update(file);
+            }
+            result = job.succeeded();
+        } catch (RestException e) {
+            result = job.failed(e.getStatusCode().value(), e.getReason());
+        } catch (RuntimeException e) {
+            log.error("Upload job {} failed for file: {}", job.id(), job.fileName(), e);
+            result = job.failed(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Failed to process file");
+        } finally {
+            deleteJobDirectory(upload.getParent());
+        }
+        finish(result);
+    }
+
+    private void finish(UploadJob job) {
+        jobs.put(job.id(), job);
+        finishedJobs.add(job.id());
+        if (finishedCount.incrementAndGet() > historySize) {
+            String expired = finishedJobs.poll();
+            if (expired != null) {
+                finishedCount.decrementAndGet();
+                jobs.remove(expired);
+            }
+        }
+    }
+
+    private Path persist(UploadJob job, MultipartFile file) {
+        Path jobDirectory = incomingPath.resolve(job.type().name().toLowerCase(Locale.ROOT)).resolve(job.id());
+        Path upload = jobDirectory.resolve(job.fileName());
+        try {
+            Files.createDirectories(jobDirectory);
+            Path tempUpload = jobDirectory.resolve(job.fileName() + TEMP_EXTENSION);
+            file.transferTo(tempUpload);
+            return Files.move(tempUpload, upload, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteJobDirectory(jobDirectory);
+            throw new InternalErrorException("Failed to persist upload: " + job.fileName(), e);
+        }
+    }
+
+    private static List<Path> list(Path directory) {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.toList();
+        } catch (IOException e) {
+            throw new InternalErrorException("Failed to list pending uploads: " + directory, e);
+        }
+    }
+
+    private static FileTime lastModified(Path upload) {
+        try {
+            return Files.getLastModifiedTime(upload);
+        } catch (IOException e) {
+            throw new InternalErrorException("Failed to read pending upload: " + upload, e);
+        }
+    }
+
+    private static void deleteJobDirectory(Path jobDirectory) {
+        try {
+            FileSystemUtils.deleteRecursively(jobDirectory);
+        } catch (IOException e) {
+            log.warn("Failed to delete job directory: {}", jobDirectory, e);
+        }
+    }
+
+    private static void sleep() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(RESUME_BACKOFF_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while resuming upload jobs", e);
+        }
+    }
+
+    private static TooManyRequestsException queueFull() {
+        return new TooManyRequestsException("Upload queue is full, retry later");
+    }
+
+    private record PendingUpload(UploadJob job, Path path, FileTime acceptedAt) {
+    }
+}
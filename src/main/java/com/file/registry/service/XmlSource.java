@@ -0,0 +1,156 @@
+package com.file.registry.service;
+
+import com.file.registry.exception.PayloadTooLargeException;
+import com.file.registry.storage.ContentDigestStore;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * The XML content of an upload or update.
+ *
+ * <p>A multipart file has been received in full before the write starts and can be read more than
+ * once. A request body is read once, straight from the connection while it arrives, so its size
+ * and source hash are only known once it has been read. Closing it reads it to its end, so both
+ * cover content after the root element as well. A body longer than its limit is rejected while it
+ * is read.
+ *
+ * <p>Either source is hashed while it is converted, so the hash costs no extra read. Only a write
+ * that can skip the conversion when it knows the hash up front reads a multipart file for it
+ * first, with {@link #hashSource()}.
+ */
+final class XmlSource {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final MultipartFile file;
+    private RequestBody body;
+    private String fileHash;
+
+    private XmlSource(MultipartFile file, RequestBody body) {
+        this.file = file;
+        this.body = body;
+    }
+
+    static XmlSource of(MultipartFile file) {
+        return new XmlSource(file, null);
+    }
+
+    /**
+     * Wraps a request body of at most {@code maxSize} bytes, which is hashed while it is read.
+     */
+    static XmlSource of(InputStream body, long maxSize) {
+        return new XmlSource(null, new RequestBody(body, maxSize, ContentDigestStore.newDigest()));
+    }
+
+    /**
+     * Opens the content. A multipart file whose hash is not known yet is hashed as it is read,
+     * and the hash is known once the stream has been closed.
+     */
+    InputStream open() throws IOException {
+        if (file == null) {
+            return body;
+        }
+        if (sourceHash() != null) {
+            return file.getInputStream();
+        }
+        body = new RequestBody(file.getInputStream(), Long.MAX_VALUE, ContentDigestStore.newDigest());
+        return body;
+    }
+
+    /**
+     * Returns the number of XML bytes received; for a request body, the number read so far.
+     */
+    long size() {
+        return file != null ? file.getSize() : body.count;
+    }
+
+    /**
+     * Returns the hash of the XML bytes if they have been read, or {@code null} until a stream
+     * from {@link #open()} has been closed.
+     */
+    String sourceHash() {
+        return fileHash != null || body == null ? fileHash : body.hash;
+    }
+
+    /**
+     * Returns the hash of the XML bytes, reading a multipart file for it now if it has not been
+     * read yet. A request body cannot be read ahead, so its hash stays {@code null} until it has
+     * been converted.
+     */
+    String hashSource() throws IOException {
+        if (file != null && sourceHash() == null) {
+            fileHash = ContentDigestStore.hash(file.getInputStream());
+        }
+        return sourceHash();
+    }
+
+    /**
+     * Counts and hashes the bytes read. Extends {@link InputStream} rather than
+     * {@link java.io.FilterInputStream}, whose {@code skip} would bypass both.
+     */
+    private static final class RequestBody extends InputStream {
+
+        private final InputStream in;
+        private final long maxSize;
+        private final MessageDigest digest;
+        private long count;
+        private boolean closed;
+        private String hash;
+
+        private RequestBody(InputStream in, long maxSize, MessageDigest digest) {
+            this.in = in;
+            this.maxSize = maxSize;
+            this.digest = digest;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                received(1);
+                digest.update((byte) b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, len);
+            if (read > 0) {
+                received(read);
+                digest.update(b, off, read);
+            }
+            return read;
+        }
+
+        private void received(int bytes) {
+            count += bytes;
+            if (count > maxSize) {
+                throw new PayloadTooLargeException("Request body exceeds the limit of " + maxSize + " bytes");
+            }
+        }
+
+        @Override
+        public int available() throws IOException {
+            return in.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            try {
+                transferTo(OutputStream.nullOutputStream());
+                hash = HEX.formatHex(digest.digest());
+            } finally {
+                closed = true;
+                in.close();
+            }
+        }
+    }
+}
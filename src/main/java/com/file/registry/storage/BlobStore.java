@@ -0,0 +1,172 @@
+package com.file.registry.storage;
+
+import static com.file.registry.constants.ApplicationConstants.TEMP_EXTENSION;
+
+import com.file.registry.properties.StorageProperties;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Locale;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Content-addressed store that keeps each distinct converted document once.
+ *
+ * <p>A blob lives at {@code blobs/<xx>/<sha256>} and every stored file with that content is a
+ * hard link to it, so readers, digests and index links treat a deduplicated file like any other.
+ * The link count of a blob is its reference count: once only the blob path itself is left, the
+ * blob is garbage collected. A source alias ({@code blobs/sources/<xx>/<sha256>-<format>}) maps
+ * the hash of the uploaded XML to the blob it converted to, so a known upload is linked without
+ * being converted again.
+ *
+ * <p>Operations on one blob are serialized by a lock on its hash. These locks are striped
+ * separately from the file locks, which callers already hold, so the two can never deadlock.
+ */
+@Slf4j
+@Component
+public class BlobStore {
+
+    public static final String BLOB_DIRECTORY = "blobs";
+
+    private static final String SOURCE_DIRECTORY = "sources";
+    private static final String LINK_COUNT_ATTRIBUTE = "unix:nlink";
+    private static final int SHARD_LENGTH = 2;
+
+    private final Path blobPath;
+    private final Path sourcePath;
+    private final String formatSuffix;
+    private final boolean enabled;
+    private final FileLockManager blobLocks = new FileLockManager();
+
+    public BlobStore(StorageProperties storageProperties) {
+        this.blobPath = Paths.get(storageProperties.getPath()).resolve(BLOB_DIRECTORY);
+        this.sourcePath = blobPath.resolve(SOURCE_DIRECTORY);
+        this.formatSuffix = "-" + storageProperties.getFormat().name().toLowerCase(Locale.ROOT);
+        this.enabled = storageProperties.isDeduplication();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Links {@code filePath} to the blob an identical upload was converted to, and returns the
+     * content hash of that blob, or {@code null} if the source is unknown or its blob is gone.
+     */
+    public String linkSource(String sourceHash, Path filePath) throws IOException {
+        Path alias = shard(sourcePath, sourceHash + formatSuffix);
+        Path blob;
+        try {
+            blob = Files.readSymbolicLink(alias);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        String contentHash = blob.getFileName().toString();
+        return withLock(contentHash, () -> {
+            if (!Files.exists(blob)) {
+                Files.deleteIfExists(alias);
+                return null;
+            }
+            link(blob, filePath);
+            return contentHash;
+        });
+    }
+
+    /**
+     * Stores a converted document under its content hash, unless an identical blob exists, and
+     * links {@code filePath} to it. The converted file is consumed either way.
+     *
+     * @return {@code true} if the content was already stored
+     */
+    public boolean store(Path converted, String contentHash, String sourceHash, Path filePath) throws IOException {
+        Path blob = shard(blobPath, contentHash);
+        return withLock(contentHash, () -> {
+            boolean existing = Files.exists(blob);
+            if (existing) {
+                Files.delete(converted);
+            } else {
+                Files.createDirectories(blob.getParent());
+                Files.move(converted, blob, StandardCopyOption.ATOMIC_MOVE);
+            }
+            createAlias(shard(sourcePath, sourceHash + formatSuffix), blob);
+            link(blob, filePath);
+            return existing;
+        });
+    }
+
+    /**
+     * Drops the blob with the given content hash once no stored file links to it any more. Files
+     * stored before deduplication was enabled have no blob, so this does nothing for them.
+     */
+    public void release(String contentHash) throws IOException {
+        Path blob = shard(blobPath, contentHash);
+        withLock(contentHash, () -> {
+            if (Files.exists(blob) && ((Number) Files.getAttribute(blob, LINK_COUNT_ATTRIBUTE)).intValue() <= 1) {
+                Files.delete(blob);
+                log.debug("Garbage collected unreferenced blob: {}", contentHash);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Returns the path of the blob with the given content hash if it is the file identified by
+     * {@code fileKey}, or {@code null} if the file is not linked to a blob.
+     */
+    public Path find(String contentHash, Object fileKey) throws IOException {
+        Path blob = shard(blobPath, contentHash);
+        try {
+            return fileKey.equals(Files.readAttributes(blob, BasicFileAttributes.class).fileKey()) ? blob : null;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static void link(Path blob, Path filePath) throws IOException {
+        if (Files.exists(filePath) && Files.isSameFile(blob, filePath)) {
+            return;
+        }
+        Path tempLink = filePath.resolveSibling(filePath.getFileName() + TEMP_EXTENSION);
+        Files.deleteIfExists(tempLink);
+        Files.createLink(tempLink, blob);
+        Files.move(tempLink, filePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void createAlias(Path alias, Path blob) throws IOException {
+        Files.createDirectories(alias.getParent());
+        Path tempAlias = alias.resolveSibling(alias.getFileName() + TEMP_EXTENSION);
+        Files.deleteIfExists(tempAlias);
+        Files.createSymbolicLink(tempAlias, blob.toAbsolutePath());
+        Files.move(tempAlias, alias, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Path shard(Path directory, String name) {
+        return directory.resolve(name.substring(0, SHARD_LENGTH)).resolve(name);
+    }
+
+    private <T> T withLock(String contentHash, BlobAction<T> action) throws IOException {
+        try {
+            return blobLocks.withLock(contentHash, () -> {
+                try {
+                    return action.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface BlobAction<T> {
+
+        T run() throws IOException;
+    }
+}
@@ -0,0 +1,162 @@
+package com.file.registry.storage;
+
+import static com.file.registry.constants.ApplicationConstants.DIGEST_EXTENSION;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the SHA-256 digest of every stored file in a {@code .sha256} sidecar next to it.
+ *
+ * <p>The sidecar also records the size and modification time of the file it was computed for,
+ * and optionally the key of the XML source the file was converted from. A sidecar that does not
+ * match the current file (left behind by a crash between the data and sidecar writes, or by an
+ * external change) is ignored and the digest is recomputed, without a source.
+ */
+@Slf4j
+@Component
+public class ContentDigestStore {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String SEPARATOR = " ";
+    private static final HexFormat HEX = HexFormat.of();
+    private static final int SOURCE_POSITION = 3;
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not supported", e);
+        }
+    }
+
+    public static String hash(InputStream input) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream digested = new DigestInputStream(input, digest)) {
+            digested.transferTo(OutputStream.nullOutputStream());
+        }
+        return HEX.formatHex(digest.digest());
+    }
+
+    /**
+     * Returns whether two reads of a path's attributes found the same, unmodified file.
+     */
+    public static boolean isSameFile(BasicFileAttributes before, BasicFileAttributes after) {
+        return Objects.equals(before.fileKey(), after.fileKey())
+                && before.size() == after.size()
+                && before.lastModifiedTime().equals(after.lastModifiedTime());
+    }
+
+    /**
+     * Returns the digest of a file, recomputing it if the sidecar does not match. Readers do this
+     * without the file lock, so the recomputed digest is only recorded if the file was not
+     * replaced or modified while it was hashed.
+     */
+    public String read(Path file) throws IOException {
+        String[] parts = readValid(file);
+        if (parts != null) {
+            return parts[0];
+        }
+
+        BasicFileAttributes before = Files.readAttributes(file, BasicFileAttributes.class);
+        String hex = hash(Files.newInputStream(file));
+        if (isSameFile(before, Files.readAttributes(file, BasicFileAttributes.class))) {
+            writeRecord(file, before, hex, null);
+        }
+        return hex;
+    }
+
+    /**
+     * Returns the source key recorded with the digest of a file, or {@code null} if none is
+     * recorded or the sidecar does not match the file.
+     */
+    public String readSource(Path file) throws IOException {
+        String[] parts = readValid(file);
+        return parts != null && parts.length > SOURCE_POSITION ? parts[SOURCE_POSITION] : null;
+    }
+
+    public String write(Path file, byte[] digest) throws IOException {
+        return write(file, digest, null);
+    }
+
+    /**
+     * Records the digest of a file together with the key of the source it was converted from,
+     * which may be {@code null}.
+     */
+    public String write(Path file, byte[] digest, String source) throws IOException {
+        String hex = HEX.formatHex(digest);
+        writeRecord(file, Files.readAttributes(file, BasicFileAttributes.class), hex, source);
+        return hex;
+    }
+
+    /**
+     * Moves the sidecar of a file that was moved from {@code source} to {@code target}. A file move
+     * keeps its modification time, so the moved sidecar stays valid.
+     */
+    public void move(Path source, Path target) throws IOException {
+        Path sidecar = sidecarOf(source);
+        if (Files.exists(sidecar)) {
+            Files.move(sidecar, sidecarOf(target), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public void delete(Path file) {
+        try {
+            Files.deleteIfExists(sidecarOf(file));
+        } catch (IOException e) {
+            log.warn("Failed to delete digest of: {}", file, e);
+        }
+    }
+
+    /**
+     * Replaces the sidecar atomically, so a reader or a crash never sees a partial record.
+     */
+    private static void writeRecord(Path file, BasicFileAttributes attributes, String hex, String source)
+            throws IOException {
+        String record = String.join(SEPARATOR, hex,
+                Long.toString(attributes.size()),
+                Long.toString(attributes.lastModifiedTime().toMillis()));
+        Path sidecar = sidecarOf(file);
+        Path tempSidecar = StorageLayout.createTempFile(sidecar.getParent(), sidecar.getFileName().toString());
+        try {
+            Files.writeString(tempSidecar, source == null ? record : record + SEPARATOR + source);
+            Files.move(tempSidecar, sidecar, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempSidecar);
+        }
+    }
+
+    private static String[] readValid(Path file) throws IOException {
+        Path sidecar = sidecarOf(file);
+        if (!Files.exists(sidecar)) {
+            return null;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        String[] parts = Files.readString(sidecar).split(SEPARATOR);
+        return (parts.length == SOURCE_POSITION || parts.length == SOURCE_POSITION + 1) && matches(attributes, parts)
+                ? parts
+                : null;
+    }
+
+    private static boolean matches(BasicFileAttributes attributes, String[] parts) {
+        return parts[1].equals(Long.toString(attributes.size()))
+                && parts[2].equals(Long.toString(attributes.lastModifiedTime().toMillis()));
+    }
+
+    private static Path sidecarOf(Path file) {
+        return file.resolveSibling(file.getFileName() + DIGEST_EXTENSION);
+    }
+}
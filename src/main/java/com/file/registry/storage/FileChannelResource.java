@@ -0,0 +1,99 @@
+package com.file.registry.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import org.springframework.core.io.AbstractResource;
+
+/**
+ * {@link org.springframework.core.io.Resource} over a file that is already open, so it keeps
+ * serving the file it was opened on even if the path is replaced before the body is written.
+ *
+ * <p>Every stream reads at its own position, so the resource can be read repeatedly, which
+ * Spring MVC relies on when it serves byte ranges. Closing a stream leaves the channel open;
+ * whoever opened it closes it once the response is complete.
+ */
+public class FileChannelResource extends AbstractResource {
+
+    private final FileChannel channel;
+    private final long length;
+    private final String fileName;
+
+    public FileChannelResource(FileChannel channel, long length, String fileName) {
+        this.channel = channel;
+        this.length = length;
+        this.fileName = fileName;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new InputStream() {
+            private long position;
+
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                return read(single, 0, 1) < 0 ? -1 : Byte.toUnsignedInt(single[0]);
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int count) throws IOException {
+                if (count == 0) {
+                    return 0;
+                }
+                if (position >= length) {
+                    return -1;
+                }
+                int limit = (int) Math.min(count, length - position);
+                int read = channel.read(ByteBuffer.wrap(bytes, offset, limit), position);
+                if (read > 0) {
+                    position += read;
+                }
+                return read;
+            }
+
+            @Override
+            public long skip(long count) {
+                long skipped = Math.min(Math.max(count, 0), length - position);
+                position += skipped;
+                return skipped;
+            }
+
+            @Override
+            public int available() {
+                return (int) Math.min(length - position, Integer.MAX_VALUE);
+            }
+        };
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public String getFilename() {
+        return fileName;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Open file [" + fileName + "]";
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+}
@@ -0,0 +1,50 @@
+package com.file.registry.storage;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Striped locks that serialize writers of the same stored file.
+ *
+ * <p>A file name is hashed onto one of a fixed number of locks, so operations on different files
+ * rarely contend and no global lock is needed; two names sharing a stripe are merely serialized.
+ * Readers do not lock: data files and index links are replaced by atomic renames, so a reader
+ * sees either the old or the new file, never a partial one.
+ */
+@Component
+public class FileLockManager {
+
+    private static final int STRIPES = 256;
+
+    private final Lock[] locks = new Lock[STRIPES];
+
+    public FileLockManager() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withLock(String fileName, Supplier<T> action) {
+        Lock lock = lockFor(fileName);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void withLock(String fileName, Runnable action) {
+        withLock(fileName, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private Lock lockFor(String fileName) {
+        int hash = fileName.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,62 @@
+package com.file.registry.storage;
+
+import com.file.registry.dto.StoredFile;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Reads and writes gzip-compressed stored files.
+ *
+ * <p>Compressed files keep their {@code .json} name and are recognized by the gzip magic number,
+ * which can never start a JSON document. The decoded length is taken from the {@code ISIZE}
+ * trailer, so it is known without decompressing; the trailer holds the length modulo 2^32, which
+ * limits compressed documents to 4 GiB.
+ */
+@UtilityClass
+public class GzipContent {
+
+    public static final String ENCODING = "gzip";
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAGIC = 0x8b1f;
+    private static final int HEADER_SIZE = 10;
+    private static final int TRAILER_SIZE = Integer.BYTES;
+
+    public static OutputStream encode(OutputStream output) throws IOException {
+        return new GZIPOutputStream(output, BUFFER_SIZE);
+    }
+
+    public static InputStream decode(InputStream input) throws IOException {
+        return new GZIPInputStream(input, BUFFER_SIZE);
+    }
+
+    /**
+     * Returns the decoded length of a gzip file, or {@link StoredFile#UNCOMPRESSED} if the file
+     * is not compressed.
+     */
+    public static long decodedLength(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + TRAILER_SIZE) {
+                return StoredFile.UNCOMPRESSED;
+            }
+            ByteBuffer magic = ByteBuffer.allocate(Short.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(magic, 0);
+            if (magic.getShort(0) != (short) MAGIC) {
+                return StoredFile.UNCOMPRESSED;
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(trailer, size - TRAILER_SIZE);
+            return Integer.toUnsignedLong(trailer.getInt(0));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.file.registry.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * Decompressed view of a gzip-compressed {@link Resource}. The decoded length is known up front,
+ * so Spring MVC can serve byte ranges of the decoded content.
+ */
+public class GzipDecodingResource extends AbstractResource {
+
+    private final Resource encoded;
+    private final long decodedLength;
+
+    public GzipDecodingResource(Resource encoded, long decodedLength) {
+        this.encoded = encoded;
+        this.decodedLength = decodedLength;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return GzipContent.decode(encoded.getInputStream());
+    }
+
+    @Override
+    public boolean exists() {
+        return encoded.exists();
+    }
+
+    @Override
+    public long contentLength() {
+        return decodedLength;
+    }
+
+    @Override
+    public String getFilename() {
+        return encoded.getFilename();
+    }
+
+    @Override
+    public String getDescription() {
+        return "Decoded " + encoded.getDescription();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+}
@@ -0,0 +1,228 @@
+package com.file.registry.storage;
+
+import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.CUSTOMER_INDEX_NAME;
+import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.DATE_INDEX_NAME;
+import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.TYPE_INDEX_NAME;
+import static com.file.registry.constants.ApplicationConstants.JSON_EXTENSION;
+import static com.file.registry.constants.ApplicationConstants.TEMP_EXTENSION;
+
+import com.file.registry.exception.InternalErrorException;
+import com.file.registry.index.FileIndex;
+import com.file.registry.index.FileKey;
+import com.file.registry.properties.StorageProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maintains the {@code index-by-customer}, {@code index-by-type} and {@code index-by-date}
+ * directories, which expose every stored file through a symlink per dimension. Deleting a file
+ * removes its links, and {@link IndexScrubber} repairs links that drift from the index anyway.
+ *
+ * <p>A new link is created in place; an existing one is kept if it already points to the file and
+ * otherwise replaced by a link created under a temporary name and renamed over it, so a reader
+ * following it always reaches a stored file. Index directories known to exist are not created
+ * again, which leaves one syscall per dimension for a new file.
+ *
+ * <p>With {@code index.write-behind} enabled, links and unlinks are queued instead and applied in
+ * batches by a background thread started by {@link #start()}, with repeated changes of one file
+ * coalesced into the latest. The {@link FileIndex} journal serves as their durable log: the queue
+ * is flushed before the journal is compacted, and {@link #recover()} re-links the files journaled
+ * since the last compaction; unlinks lost in a crash are left to the scrubber. The API never reads
+ * the links, so clients still read their own writes through the index.
+ */
+@Slf4j
+@Component
+public class IndexLinks {
+
+    private final Path storagePath;
+    private final StorageLayout storageLayout;
+    private final FileIndex fileIndex;
+    private final boolean writeBehind;
+    private final Duration flushInterval;
+    private final Map<String, PendingLink> pending = new ConcurrentHashMap<>();
+    private final Set<Path> directories = ConcurrentHashMap.newKeySet();
+    private final Lock flushLock = new ReentrantLock();
+    private Thread flusher;
+
+    public IndexLinks(StorageProperties storageProperties, StorageLayout storageLayout, FileIndex fileIndex) {
+        this.storagePath = Paths.get(storageProperties.getPath());
+        this.storageLayout = storageLayout;
+        this.fileIndex = fileIndex;
+        this.writeBehind = storageProperties.getIndex().isWriteBehind();
+        this.flushInterval = storageProperties.getIndex().getFlushInterval();
+    }
+
+    /**
+     * Starts the background flusher and hooks the queue flush into journal compaction once the
+     * bean is fully constructed. Does nothing unless write-behind is enabled.
+     */
+    @PostConstruct
+    public void start() {
+        if (!writeBehind || flusher != null) {
+            return;
+        }
+        fileIndex.beforeCompaction(this::flush);
+        flusher = Thread.ofPlatform().name("index-links").daemon().start(this::runFlusher);
+    }
+
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    public void link(String fileName, Path originPath) {
+        enqueue(fileName, new PendingLink(originPath));
+    }
+
+    public void unlink(String fileName) {
+        enqueue(fileName, PendingLink.REMOVED);
+    }
+
+    /**
+     * Applies all queued changes. A change that fails stays queued for the next flush.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            for (Map.Entry<String, PendingLink> entry : pending.entrySet()) {
+                String fileName = entry.getKey();
+                PendingLink change = entry.getValue();
+                try {
+                    apply(fileName, change);
+                    pending.remove(fileName, change);
+                } catch (InternalErrorException e) {
+                    log.warn("Failed to update index links, retrying on next flush: {}", fileName, e);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Re-links the files added since the last journal compaction, whose queued links may have
+     * been lost in a crash. Does nothing unless write-behind is enabled.
+     */
+    public void recover() {
+        if (!writeBehind) {
+            return;
+        }
+        List<String> fileNames = fileIndex.journaledFiles();
+        for (String fileName : fileNames) {
+            pending.putIfAbsent(fileName, new PendingLink(storageLayout.locate(fileName)));
+        }
+        flush();
+        log.info("Verified index links of {} journaled files", fileNames.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        if (flusher != null) {
+            flusher.interrupt();
+            flush();
+        }
+    }
+
+    private void enqueue(String fileName, PendingLink change) {
+        if (writeBehind) {
+            pending.put(fileName, change);
+        } else {
+            apply(fileName, change);
+        }
+    }
+
+    private void runFlusher() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(flushInterval);
+            } catch (InterruptedException e) {
+                return;
+            }
+            flush();
+        }
+    }
+
+    private void apply(String fileName, PendingLink change) {
+        FileKey key = FileKey.parse(fileName, JSON_EXTENSION);
+        if (key == null) {
+            log.warn("Skipping index links of file with unsupported name: {}", fileName);
+            return;
+        }
+        Path[] indexDirectories = {
+                storagePath.resolve(CUSTOMER_INDEX_NAME).resolve(key.customer()),
+                storagePath.resolve(TYPE_INDEX_NAME).resolve(key.type()),
+                storagePath.resolve(DATE_INDEX_NAME).resolve(key.date().toString())
+        };
+        for (Path directory : indexDirectories) {
+            if (change.originPath() == null) {
+                removeSymlink(directory, fileName);
+            } else {
+                createSymlink(directory, fileName, change.originPath());
+            }
+        }
+    }
+
+    private void createSymlink(Path directory, String fileName, Path originPath) {
+        Path link = directory.resolve(fileName);
+        try {
+            if (directories.add(directory)) {
+                Files.createDirectories(directory);
+            }
+            try {
+                Files.createSymbolicLink(link, originPath);
+                return;
+            } catch (NoSuchFileException e) {
+                Files.createDirectories(directory);
+                Files.createSymbolicLink(link, originPath);
+                return;
+            } catch (FileAlreadyExistsException e) {
+                if (Files.isSymbolicLink(link) && Files.readSymbolicLink(link).equals(originPath)) {
+                    return;
+                }
+            }
+            Path tempLink = directory.resolve(fileName + TEMP_EXTENSION);
+            Files.deleteIfExists(tempLink);
+            Files.createSymbolicLink(tempLink, originPath);
+            Files.move(tempLink, link, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            directories.remove(directory);
+            throw new InternalErrorException("Failed to create symlink: " + directory, e);
+        }
+    }
+
+    private static void removeSymlink(Path directory, String fileName) {
+        try {
+            Files.deleteIfExists(directory.resolve(fileName));
+        } catch (IOException e) {
+            throw new InternalErrorException("Failed to remove symlink: " + directory, e);
+        }
+    }
+
+    /**
+     * A queued change of the links of one file: links to {@code originPath}, or removes the links
+     * when it is {@code null}.
+     */
+    private record PendingLink(Path originPath) {
+
+        static final PendingLink REMOVED = new PendingLink(null);
+    }
+}
@@ -0,0 +1,340 @@
+package com.file.registry.storage;
+
+import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.CUSTOMER_INDEX_NAME;
+import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.DATE_INDEX_NAME;
+import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.INDEX_JOURNAL_DIRECTORY;
+import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.TYPE_INDEX_NAME;
+import static com.file.registry.constants.ApplicationConstants.TEMP_EXTENSION;
+
+import com.file.registry.exception.InternalErrorException;
+import com.file.registry.index.FileIndex;
+import com.file.registry.properties.StorageProperties;
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Background repair of the {@code index-by-*} directories against the in-memory index.
+ *
+ * <p>A pass visits every key directory of every dimension: the indexed keys in order, then the
+ * directories left on disk for keys that are no longer indexed. Links of files that are not
+ * indexed or whose target is gone are removed, missing links of indexed files are created, and
+ * key directories without indexed files are dropped. Keys come from the index's live view and
+ * directories are read entry by entry, so a pass holds no listing of a dimension or a key. Each
+ * repair re-checks the file under its file lock, so it never undoes a concurrent upload or
+ * delete. Entries are visited at no more than {@code scrubber.rate} per second, and the last
+ * finished key directory is checkpointed, so a pass interrupted by a restart resumes where it
+ * stopped.
+ */
+@Slf4j
+@Component
+public class IndexScrubber {
+
+    private static final String CHECKPOINT_FILE_NAME = "scrub.checkpoint";
+    private static final String CHECKPOINT_SEPARATOR = "/";
+
+    private final Path storagePath;
+    private final Path checkpointPath;
+    private final FileIndex fileIndex;
+    private final StorageLayout storageLayout;
+    private final IndexLinks indexLinks;
+    private final FileLockManager fileLockManager;
+    private final boolean enabled;
+    private final long nanosPerEntry;
+    private final Duration interval;
+    private long nextEntry;
+
+    public IndexScrubber(
+            StorageProperties storageProperties,
+            FileIndex fileIndex,
+            StorageLayout storageLayout,
+            IndexLinks indexLinks,
+            FileLockManager fileLockManager) {
+        this.storagePath = Paths.get(storageProperties.getPath());
+        this.checkpointPath = storagePath.resolve(INDEX_JOURNAL_DIRECTORY).resolve(CHECKPOINT_FILE_NAME);
+        this.fileIndex = fileIndex;
+        this.storageLayout = storageLayout;
+        this.indexLinks = indexLinks;
+        this.fileLockManager = fileLockManager;
+        StorageProperties.Scrubber scrubber = storageProperties.getScrubber();
+        this.enabled = scrubber.isEnabled();
+        if (scrubber.getRate() <= 0) {
+            throw new IllegalArgumentException("scrubber.rate must be positive: " + scrubber.getRate());
+        }
+        this.nanosPerEntry = TimeUnit.SECONDS.toNanos(1) / scrubber.getRate();
+        this.interval = scrubber.getInterval();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs a pass every {@code scrubber.interval} until the thread is interrupted.
+     */
+    public void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                scrub();
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (InternalErrorException e) {
+                log.error("Index scrub pass failed, retrying in {}", interval, e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    /**
+     * Scrubs all index directories, starting after the checkpoint of an interrupted pass, and
+     * returns the number of repaired entries.
+     */
+    public synchronized int scrub() throws InterruptedException {
+        String checkpoint = readCheckpoint();
+        Pass pass = new Pass();
+        for (Dimension dimension : Dimension.values()) {
+            String after = null;
+            if (checkpoint != null) {
+                String prefix = dimension.name() + CHECKPOINT_SEPARATOR;
+                if (!checkpoint.startsWith(prefix)) {
+                    continue;
+                }
+                after = checkpoint.substring(prefix.length());
+                checkpoint = null;
+            }
+            try (Stream<String> keys = dimension.keys(fileIndex, after)) {
+                for (Iterator<String> iterator = keys.iterator(); iterator.hasNext(); ) {
+                    String key = iterator.next();
+                    scrubKey(dimension, key, pass);
+                    writeCheckpoint(dimension.name() + CHECKPOINT_SEPARATOR + key);
+                }
+            }
+            scrubUnindexedKeys(dimension, pass);
+        }
+        deleteCheckpoint();
+        log.info("Scrubbed {} index links, repaired {}", pass.visited, pass.repaired);
+        return pass.repaired;
+    }
+
+    /**
+     * Scrubs the key directories left on disk for keys the index no longer has. They are removed
+     * as they are scrubbed, so an interrupted pass finds only the rest of them again.
+     */
+    private void scrubUnindexedKeys(Dimension dimension, Pass pass) throws InterruptedException {
+        Path root = storagePath.resolve(dimension.directoryName);
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(root)) {
+            for (Path directory : directories) {
+                String key = directory.getFileName().toString();
+                if (!dimension.isIndexed(fileIndex, key)) {
+                    scrubKey(dimension, key, pass);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // nothing was ever linked in this dimension
+        } catch (IOException e) {
+            throw new InternalErrorException("Failed to list index directory: " + root, e);
+        }
+    }
+
+    /**
+     * Removes the stale links of one key directory and creates its missing ones. The directory
+     * is read entry by entry and indexed files are checked one at a time, so memory does not
+     * grow with the size of a key. Links under a temporary name are left to {@link IndexLinks},
+     * which is about to rename them, and which replaces a leftover one on the next link.
+     */
+    private void scrubKey(Dimension dimension, String key, Pass pass) throws InterruptedException {
+        Path directory = storagePath.resolve(dimension.directoryName).resolve(key);
+        NavigableSet<String> indexed = dimension.files(fileIndex, key);
+        try (DirectoryStream<Path> links = Files.newDirectoryStream(directory)) {
+            for (Path link : links) {
+                String fileName = link.getFileName().toString();
+                if (fileName.endsWith(TEMP_EXTENSION)) {
+                    continue;
+                }
+                pass.visited++;
+                pace();
+                if ((!indexed.contains(fileName) || !Files.exists(link)) && repair(fileName, link)) {
+                    pass.repaired++;
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // no file of this key was linked yet
+        } catch (IOException e) {
+            throw new InternalErrorException("Failed to list index directory: " + directory, e);
+        }
+        for (String fileName : indexed) {
+            Path link = directory.resolve(fileName);
+            pace();
+            if (!Files.exists(link, LinkOption.NOFOLLOW_LINKS) && repair(fileName, link)) {
+                pass.repaired++;
+            }
+        }
+        if (indexed.isEmpty()) {
+            deleteIfEmpty(directory);
+        }
+    }
+
+    private boolean repair(String fileName, Path link) {
+        return fileLockManager.withLock(fileName, () -> {
+            try {
+                if (!fileIndex.contains(fileName)) {
+                    return Files.deleteIfExists(link);
+                }
+                Path filePath = storageLayout.locate(fileName);
+                if (!Files.exists(filePath)) {
+                    log.warn("Removing index entry of missing file: {}", fileName);
+                    fileIndex.remove(fileName);
+                    indexLinks.unlink(fileName);
+                    return true;
+                }
+                if (Files.exists(link)) {
+                    return false;
+                }
+                indexLinks.link(fileName, filePath);
+                return true;
+            } catch (IOException e) {
+                throw new InternalErrorException("Failed to repair index link: " + link, e);
+            }
+        });
+    }
+
+    private void pace() throws InterruptedException {
+        long now = System.nanoTime();
+        if (nextEntry > now) {
+            TimeUnit.NANOSECONDS.sleep(nextEntry - now);
+        }
+        nextEntry = Math.max(nextEntry, now) + nanosPerEntry;
+    }
+
+    private String readCheckpoint() {
+        try {
+            return Files.readString(checkpointPath).strip();
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new InternalErrorException("Failed to read scrub checkpoint: " + checkpointPath, e);
+        }
+    }
+
+    private void writeCheckpoint(String checkpoint) {
+        Path tempPath = checkpointPath.resolveSibling(CHECKPOINT_FILE_NAME + TEMP_EXTENSION);
+        try {
+            Files.createDirectories(checkpointPath.getParent());
+            Files.writeString(tempPath, checkpoint);
+            Files.move(tempPath, checkpointPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new InternalErrorException("Failed to write scrub checkpoint: " + checkpointPath, e);
+        }
+    }
+
+    private void deleteCheckpoint() {
+        try {
+            Files.deleteIfExists(checkpointPath);
+        } catch (IOException e) {
+            throw new InternalErrorException("Failed to delete scrub checkpoint: " + checkpointPath, e);
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(interval);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void deleteIfEmpty(Path directory) {
+        try {
+            Files.deleteIfExists(directory);
+        } catch (DirectoryNotEmptyException e) {
+            // a file was linked into it concurrently
+        } catch (IOException e) {
+            throw new InternalErrorException("Failed to delete index directory: " + directory, e);
+        }
+    }
+
+    /**
+     * Counts of one scrub pass.
+     */
+    private static final class Pass {
+
+        private int visited;
+        private int repaired;
+    }
+
+    private enum Dimension {
+        CUSTOMER(CUSTOMER_INDEX_NAME),
+        TYPE(TYPE_INDEX_NAME),
+        DATE(DATE_INDEX_NAME);
+
+        private final String directoryName;
+
+        Dimension(String directoryName) {
+            this.directoryName = directoryName;
+        }
+
+        /**
+         * Streams the indexed keys in order, after {@code after} if it is set, straight from the
+         * index's live view.
+         */
+        private Stream<String> keys(FileIndex fileIndex, String after) {
+            return switch (this) {
+                case CUSTOMER -> tail(fileIndex.customerKeys(), after).stream();
+                case TYPE -> tail(fileIndex.typeKeys(), after).stream();
+                case DATE -> tail(fileIndex.dateKeys(), after == null ? null : parseDate(after))
+                        .stream().map(LocalDate::toString);
+            };
+        }
+
+        private boolean isIndexed(FileIndex fileIndex, String key) {
+            return switch (this) {
+                case CUSTOMER -> fileIndex.customerKeys().contains(key);
+                case TYPE -> fileIndex.typeKeys().contains(key);
+                case DATE -> {
+                    LocalDate date = parseDate(key);
+                    yield date != null && fileIndex.dateKeys().contains(date);
+                }
+            };
+        }
+
+        private NavigableSet<String> files(FileIndex fileIndex, String key) {
+            return switch (this) {
+                case CUSTOMER -> fileIndex.customerFiles(key);
+                case TYPE -> fileIndex.typeFiles(key);
+                case DATE -> {
+                    LocalDate date = parseDate(key);
+                    yield date == null ? Collections.emptyNavigableSet() : fileIndex.dateFiles(date);
+                }
+            };
+        }
+
+        private static <T> NavigableSet<T> tail(NavigableSet<T> keys, T after) {
+            return after == null ? keys : keys.tailSet(after, false);
+        }
+
+        private static LocalDate parseDate(String key) {
+            try {
+                return LocalDate.parse(key);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+    }
+}
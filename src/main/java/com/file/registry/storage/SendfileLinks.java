@@ -0,0 +1,106 @@
+package com.file.registry.storage;
+
+import static com.file.registry.constants.ApplicationConstants.TEMP_EXTENSION;
+
+import com.file.registry.dto.StoredFile;
+import com.file.registry.properties.StorageProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Hard links that give the container's sendfile a path whose bytes cannot change.
+ *
+ * <p>Sendfile opens the path it is handed only after the request handler has returned, while an
+ * update may replace the stored file at any time. A stored file is never rewritten in place: new
+ * content is written to a temporary file and moved over the path. A hard link to the file the
+ * validators were read from therefore keeps exactly those bytes, whatever happens to its name
+ * afterwards. Links live in {@value #SENDFILE_DIRECTORY} and are removed once they are older than
+ * {@link #LINGER}, by the next download or at shutdown; the container opens them long before.
+ * Links left by a previous run are removed at startup.
+ */
+@Slf4j
+@Component
+public class SendfileLinks {
+
+    public static final String SENDFILE_DIRECTORY = "sendfile";
+
+    static final Duration LINGER = Duration.ofMinutes(1);
+
+    private final Path directory;
+    private final Queue<Link> links = new ConcurrentLinkedQueue<>();
+
+    public SendfileLinks(StorageProperties storageProperties) {
+        this.directory = Paths.get(storageProperties.getPath()).resolve(SENDFILE_DIRECTORY);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Links the file, or returns {@code null} if its path no longer refers to the file these
+     * validators were read from.
+     *
+     * @throws IOException if the file cannot be linked, for instance on a file system without
+     *                     hard links or file keys
+     */
+    public Path link(StoredFile file) throws IOException {
+        if (file.fileKey() == null) {
+            throw new IOException("File system does not identify files: " + file.path());
+        }
+        removeExpired();
+        Path link = directory.resolve(UUID.randomUUID() + TEMP_EXTENSION);
+        Files.createLink(link, file.path());
+        Object fileKey = Files.readAttributes(link, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).fileKey();
+        if (!file.fileKey().equals(fileKey)) {
+            Files.deleteIfExists(link);
+            return null;
+        }
+        links.add(new Link(link, System.nanoTime() + LINGER.toNanos()));
+        return link;
+    }
+
+    @PreDestroy
+    public void close() {
+        Link link;
+        while ((link = links.poll()) != null) {
+            delete(link.path());
+        }
+    }
+
+    private void removeExpired() {
+        long now = System.nanoTime();
+        Link oldest;
+        while ((oldest = links.peek()) != null && oldest.expiresAt() - now <= 0) {
+            if (links.remove(oldest)) {
+                delete(oldest.path());
+            }
+        }
+    }
+
+    private static void delete(Path link) {
+        try {
+            Files.deleteIfExists(link);
+        } catch (IOException e) {
+            log.warn("Failed to delete sendfile link: {}", link, e);
+        }
+    }
+
+    private record Link(Path path, long expiresAt) {
+    }
+}
@@ -0,0 +1,131 @@
+package com.file.registry.storage;
+
+import static com.file.registry.constants.ApplicationConstants.JSON_EXTENSION;
+import static com.file.registry.constants.ApplicationConstants.TEMP_EXTENSION;
+
+import com.file.registry.properties.StorageProperties;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps stored file names to their location in the storage directory.
+ *
+ * <p>The {@code flat} layout keeps every file directly in the storage directory. The
+ * {@code sharded} layout places a file under {@code data/<xx>/<yy>/}, two levels of hex digits
+ * taken from a hash of its name, so a million files spread over 65536 directories of a few
+ * entries each and directory lookups stay fast.
+ *
+ * <p>Under the sharded layout, files still in the flat directory are found at their old location
+ * until {@link StorageMigrator} has moved them; after that, lookups no longer check it.
+ */
+@Component
+public class StorageLayout {
+
+    public static final String DATA_DIRECTORY = "data";
+
+    private static final int SHARD_LEVELS = 2;
+    private static final int HASH_MULTIPLIER = 0x45d9f3b;
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Path storagePath;
+    private final Path dataPath;
+    private final boolean sharded;
+    private volatile boolean legacyFiles;
+
+    public StorageLayout(StorageProperties storageProperties) {
+        this.storagePath = Paths.get(storageProperties.getPath());
+        this.dataPath = storagePath.resolve(DATA_DIRECTORY);
+        this.sharded = storageProperties.getLayout() == StorageProperties.Layout.SHARDED;
+        this.legacyFiles = sharded;
+    }
+
+    /**
+     * Lists the JSON files stored under either layout: directly in the storage directory and in
+     * the shard directories below {@value #DATA_DIRECTORY}. Index symlinks are not followed.
+     */
+    public static Stream<Path> storedFiles(Path storagePath) throws IOException {
+        Path dataPath = storagePath.resolve(DATA_DIRECTORY);
+        Stream<Path> flat = Files.list(storagePath);
+        Stream<Path> shards = Files.isDirectory(dataPath) ? Files.walk(dataPath, SHARD_LEVELS + 1) : Stream.empty();
+        return Stream.concat(flat, shards)
+                .filter(path -> Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS))
+                .filter(path -> path.getFileName().toString().endsWith(JSON_EXTENSION));
+    }
+
+    /**
+     * Creates an empty file with a unique name in {@code directory} to write new content into
+     * before it is moved into place. Unlike {@link Files#createTempFile}, which restricts the file
+     * to its owner, the file gets the default permissions of the process, which a move keeps.
+     */
+    public static Path createTempFile(Path directory, String prefix) throws IOException {
+        while (true) {
+            Path tempPath = directory.resolve(
+                    prefix + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + TEMP_EXTENSION);
+            try {
+                return Files.createFile(tempPath);
+            } catch (FileAlreadyExistsException e) {
+                // another writer drew the same name, draw again
+            }
+        }
+    }
+
+    /**
+     * Returns the directory of a name below {@code root}: {@code levels} nested directories of
+     * two hex digits each, taken from a hash of the name. Every sharded tree uses this hash, so
+     * the same name lands in the same shard everywhere.
+     */
+    public static Path shardDirectory(Path root, String fileName, int levels) {
+        int hash = fileName.hashCode() * HASH_MULTIPLIER;
+        hash ^= hash >>> 16;
+        Path directory = root;
+        for (int level = 0; level < levels; level++) {
+            directory = directory.resolve(HEX.toHexDigits((byte) (hash >>> (Byte.SIZE * level))));
+        }
+        return directory;
+    }
+
+    public boolean isSharded() {
+        return sharded;
+    }
+
+    /**
+     * Returns the location a file is written to under the configured layout.
+     */
+    public Path resolve(String fileName) {
+        if (!sharded) {
+            return storagePath.resolve(fileName);
+        }
+        return shardDirectory(dataPath, fileName, SHARD_LEVELS).resolve(fileName);
+    }
+
+    /**
+     * Returns the current location of a stored file, which is its flat location if it has not been
+     * migrated yet, or {@link #resolve} if the file does not exist.
+     */
+    public Path locate(String fileName) {
+        Path path = resolve(fileName);
+        if (legacyFiles && !Files.exists(path)) {
+            Path legacyPath = legacyPath(fileName);
+            if (Files.exists(legacyPath)) {
+                return legacyPath;
+            }
+        }
+        return path;
+    }
+
+    public Path legacyPath(String fileName) {
+        return storagePath.resolve(fileName);
+    }
+
+    void legacyFilesMigrated() {
+        legacyFiles = false;
+    }
+}
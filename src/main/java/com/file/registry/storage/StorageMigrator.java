@@ -0,0 +1,112 @@
+package com.file.registry.storage;
+
+import static com.file.registry.constants.ApplicationConstants.JSON_EXTENSION;
+
+import com.file.registry.cache.DocumentCache;
+import com.file.registry.exception.InternalErrorException;
+import com.file.registry.properties.StorageProperties;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves files left in the flat storage directory to their sharded location while the service
+ * keeps running.
+ *
+ * <p>Each file is moved under its file lock together with its digest sidecar, after which its
+ * index links are re-pointed. Readers resolve files through {@link StorageLayout#locate}, which
+ * finds a file at either location during the migration.
+ */
+@Slf4j
+@Component
+public class StorageMigrator {
+
+    private final Path storagePath;
+    private final StorageLayout storageLayout;
+    private final FileLockManager fileLockManager;
+    private final ContentDigestStore contentDigestStore;
+    private final DocumentCache documentCache;
+    private final IndexLinks indexLinks;
+
+    public StorageMigrator(
+            StorageProperties storageProperties,
+            StorageLayout storageLayout,
+            FileLockManager fileLockManager,
+            ContentDigestStore contentDigestStore,
+            DocumentCache documentCache,
+            IndexLinks indexLinks) {
+        this.storagePath = Paths.get(storageProperties.getPath());
+        this.storageLayout = storageLayout;
+        this.fileLockManager = fileLockManager;
+        this.contentDigestStore = contentDigestStore;
+        this.documentCache = documentCache;
+        this.indexLinks = indexLinks;
+    }
+
+    /**
+     * Migrates every flat file to the sharded layout and returns the number of files moved. Does
+     * nothing unless the sharded layout is configured.
+     */
+    public int migrate() {
+        if (!storageLayout.isSharded()) {
+            return 0;
+        }
+        int moved = 0;
+        int failed = 0;
+        try (Stream<Path> files = Files.list(storagePath)) {
+            Iterator<Path> iterator = files
+                    .filter(path -> Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS))
+                    .filter(path -> path.getFileName().toString().endsWith(JSON_EXTENSION))
+                    .iterator();
+            while (iterator.hasNext()) {
+                String fileName = iterator.next().getFileName().toString();
+                try {
+                    if (fileLockManager.withLock(fileName, () -> migrate(fileName))) {
+                        moved++;
+                    }
+                } catch (InternalErrorException e) {
+                    log.error("Failed to migrate file: {}", fileName, e);
+                    failed++;
+                }
+            }
+        } catch (IOException e) {
+            throw new InternalErrorException("Failed to list storage directory: " + storagePath, e);
+        }
+        if (failed == 0) {
+            storageLayout.legacyFilesMigrated();
+        }
+        log.info("Migrated {} files to the sharded storage layout, {} failed", moved, failed);
+        return moved;
+    }
+
+    private boolean migrate(String fileName) {
+        Path legacyPath = storageLayout.legacyPath(fileName);
+        Path path = storageLayout.resolve(fileName);
+        try {
+            if (!Files.exists(legacyPath)) {
+                return false;
+            }
+            if (Files.exists(path)) {
+                log.warn("Discarding stale flat copy of already sharded file: {}", fileName);
+                Files.delete(legacyPath);
+                contentDigestStore.delete(legacyPath);
+                return false;
+            }
+            Files.createDirectories(path.getParent());
+            Files.move(legacyPath, path, StandardCopyOption.ATOMIC_MOVE);
+            contentDigestStore.move(legacyPath, path);
+            documentCache.invalidate(fileName);
+            indexLinks.link(fileName, path);
+            return true;
+        } catch (IOException e) {
+            throw new InternalErrorException("Failed to migrate file: " + fileName, e);
+        }
+    }
+}
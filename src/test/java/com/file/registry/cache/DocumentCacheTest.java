@@ -0,0 +1,89 @@
+package com.file.registry.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.file.registry.dto.StoredFile;
+import com.file.registry.properties.StorageProperties;
+import java.nio.file.Path;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+public class DocumentCacheTest {
+
+    private StorageProperties storageProperties;
+
+    @BeforeEach
+    void setUp() {
+        storageProperties = new StorageProperties("storage");
+        storageProperties.getCache().setEnabled(true);
+        storageProperties.getCache().setMaxSize(DataSize.ofBytes(100));
+        storageProperties.getCache().setMaxEntrySize(DataSize.ofBytes(60));
+    }
+
+    @Test
+    @DisplayName("Verify: least recently used entries are evicted to stay within the byte budget")
+    void put_overBudget_shouldEvictLeastRecentlyUsed() {
+        // Given
+        DocumentCache cache = new DocumentCache(storageProperties);
+        cache.put(storedFile("a.json", 40), new byte[40], cache.stamp());
+        cache.put(storedFile("b.json", 40), new byte[40], cache.stamp());
+        cache.get("a.json");
+
+        // When
+        cache.put(storedFile("c.json", 40), new byte[40], cache.stamp());
+
+        // Then
+        assertThat(cache.get("b.json"))
+                .as("Least recently used entry should be evicted")
+                .isNull();
+        assertThat(cache.get("a.json")).isNotNull();
+        assertThat(cache.get("c.json")).isNotNull();
+        assertThat(cache.size()).isEqualTo(80);
+        assertThat(cache.evictions()).isEqualTo(1);
+        assertThat(cache.hits()).isEqualTo(3);
+        assertThat(cache.misses()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Verify: content read before an invalidation is not cached")
+    void put_afterInvalidation_shouldNotCacheStaleContent() {
+        // Given
+        DocumentCache cache = new DocumentCache(storageProperties);
+        long stamp = cache.stamp();
+
+        // When
+        cache.invalidate("a.json");
+        StoredFile result = cache.put(storedFile("a.json", 10), new byte[10], stamp);
+
+        // Then
+        assertThat(result.isCached()).isTrue();
+        assertThat(cache.get("a.json")).isNull();
+        assertThat(cache.entryCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Verify: documents above the entry limit bypass an off-heap cache")
+    void put_oversizedEntry_shouldBypassCache() {
+        // Given
+        storageProperties.getCache().setOffHeap(true);
+        DocumentCache cache = new DocumentCache(storageProperties);
+
+        // When
+        StoredFile oversized = cache.put(storedFile("a.json", 70), new byte[70], cache.stamp());
+        StoredFile small = cache.put(storedFile("b.json", 20), new byte[20], cache.stamp());
+
+        // Then
+        assertThat(oversized.isCached()).isFalse();
+        assertThat(small.content().isDirect())
+                .as("Off-heap cache should keep content in direct buffers")
+                .isTrue();
+        assertThat(cache.entryCount()).isEqualTo(1);
+    }
+
+    private static StoredFile storedFile(String fileName, long length) {
+        return new StoredFile(Path.of(fileName), length, Instant.EPOCH, fileName);
+    }
+}
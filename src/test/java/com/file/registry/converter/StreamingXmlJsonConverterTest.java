@@ -0,0 +1,193 @@
+package com.file.registry.converter;
+
+import static com.file.registry.constants.TestApplicationConstants.XML_FILE_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+public class StreamingXmlJsonConverterTest {
+
+    private final XmlMapper xmlMapper = new XmlMapper();
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    private final StreamingXmlJsonConverter converter =
+            new StreamingXmlJsonConverter(xmlMapper, jsonMapper);
+
+    @Test
+    @DisplayName("Verify: streamed JSON matches tree-based conversion of the sample document")
+    void convert_sampleDocument_shouldMatchReadTree() throws Exception {
+        // Given
+        byte[] xml = new ClassPathResource(XML_FILE_NAME).getInputStream().readAllBytes();
+
+        // When
+        JsonNode streamed = jsonMapper.readTree(convert(converter, xml));
+
+        // Then
+        assertThat(streamed)
+                .as("Streaming conversion should produce the same JSON as readTree")
+                .isEqualTo(xmlMapper.readTree(xml));
+    }
+
+    @Test
+    @DisplayName("Verify: repeated sibling elements are grouped into an array")
+    void convert_repeatedElements_shouldProduceArray() throws Exception {
+        // Given
+        byte[] xml = """
+                <orders>
+                    <header><source>erp</source></header>
+                    <order><id>1</id><line>a</line><line>b</line></order>
+                    <order><id>2</id><line>c</line></order>
+                    <order><id>3</id></order>
+                </orders>
+                """.getBytes(StandardCharsets.UTF_8);
+
+        // When
+        JsonNode streamed = jsonMapper.readTree(convert(converter, xml));
+
+        // Then
+        assertThat(streamed)
+                .as("Repeated elements should be converted the same way as readTree does")
+                .isEqualTo(xmlMapper.readTree(xml));
+        assertThat(streamed.get("order").isArray()).isTrue();
+        assertThat(streamed.get("order").get(0).get("line").size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Verify: text, empty and nil elements keep their values alone and in runs")
+    void convert_scalarRuns_shouldMatchReadTree() throws Exception {
+        // Given
+        byte[] xml = """
+                <root xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance">
+                    <text>a</text><empty/><nil xsi:nil="true"/>
+                    <mixed>1</mixed><mixed/><mixed xsi:nil="true"/><mixed><nested>n</nested></mixed>
+                    <nils xsi:nil="true"/><nils xsi:nil="true"/>
+                    <last>z</last>
+                </root>
+                """.getBytes(StandardCharsets.UTF_8);
+
+        // When
+        JsonNode streamed = jsonMapper.readTree(convert(converter, xml));
+
+        // Then
+        assertThat(streamed)
+                .as("Unbuffered text and null values should convert the same way as readTree does")
+                .isEqualTo(xmlMapper.readTree(xml));
+        assertThat(streamed.get("nil").isNull()).isTrue();
+        assertThat(streamed.get("mixed").size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Verify: values larger than the buffer limit are spilled without losing content")
+    void convert_oversizedValue_shouldSpillToOutput() throws Exception {
+        // Given
+        StringBuilder records = new StringBuilder("<export><records>");
+        for (int i = 0; i < 100; i++) {
+            records.append("<record><id>").append(i).append("</id></record>");
+        }
+        records.append("</records><trailer>done</trailer></export>");
+        byte[] xml = records.toString().getBytes(StandardCharsets.UTF_8);
+        StreamingXmlJsonConverter smallBufferConverter =
+                new StreamingXmlJsonConverter(xmlMapper, jsonMapper, 16);
+
+        // When
+        JsonNode streamed = jsonMapper.readTree(convert(smallBufferConverter, xml));
+
+        // Then
+        JsonNode expected = xmlMapper.readTree(xml);
+        assertThat(streamed.get("records").isArray())
+                .as("A spilled value should be written as the first item of an array")
+                .isTrue();
+        assertThat(streamed.get("records")).containsExactly(expected.get("records"));
+        assertThat(streamed.get("trailer")).isEqualTo(expected.get("trailer"));
+    }
+
+    @Test
+    @DisplayName("Verify: a spilled value followed by repeated siblings keeps every value in one array")
+    void convert_oversizedValueRepeated_shouldKeepAllValuesInArray() throws Exception {
+        // Given
+        StringBuilder records = new StringBuilder("<export><batch>");
+        for (int i = 0; i < 100; i++) {
+            records.append("<record><id>").append(i).append("</id></record>");
+        }
+        records.append("</batch><batch><record><id>x</id></record></batch><batch/><trailer>done</trailer></export>");
+        byte[] xml = records.toString().getBytes(StandardCharsets.UTF_8);
+        StreamingXmlJsonConverter smallBufferConverter =
+                new StreamingXmlJsonConverter(xmlMapper, jsonMapper, 16);
+
+        // When
+        String json = new String(convert(smallBufferConverter, xml), StandardCharsets.UTF_8);
+
+        // Then
+        assertThat(json.split("\"batch\"", -1))
+                .as("The repeated element should be written once, not as duplicate fields")
+                .hasSize(2);
+        assertThat(jsonMapper.readTree(json))
+                .as("Every repetition of a spilled element should be kept, as readTree does")
+                .isEqualTo(xmlMapper.readTree(xml));
+    }
+
+    @Test
+    @DisplayName("Verify: a conversion plan types planned values and always writes array elements as arrays")
+    void convert_withPlan_shouldTypeValuesAndForceArrays() throws Exception {
+        // Given
+        ConversionPlan plan = ConversionPlan.of(
+                List.of("amount", "quantity"), List.of("paid"), List.of("line", "quantity"));
+        byte[] xml = """
+                <customerData>
+                    <order>
+                        <amount>250.50</amount><paid>1</paid><note>007</note>
+                        <line><sku>A</sku><quantity>2</quantity></line>
+                    </order>
+                    <order>
+                        <amount>n/a</amount><paid/><note>x</note>
+                        <line><sku>B</sku><quantity>1</quantity><quantity>-3e2</quantity></line>
+                        <line><sku>C</sku></line>
+                    </order>
+                </customerData>
+                """.getBytes(StandardCharsets.UTF_8);
+
+        // When
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        converter.convert(new ByteArrayInputStream(xml), json, false, plan);
+
+        // Then
+        assertThat(json.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                {"order":[\
+                {"amount":250.50,"paid":true,"note":"007","line":[{"sku":"A","quantity":[2]}]},\
+                {"amount":"n/a","paid":null,"note":"x",\
+                "line":[{"sku":"B","quantity":[1,-3e2]},{"sku":"C"}]}]}""");
+        assertThat(jsonMapper.readTree(convert(converter, xml)))
+                .as("Without a plan the document should still convert like readTree")
+                .isEqualTo(xmlMapper.readTree(xml));
+        assertThatThrownBy(() -> ConversionPlan.of(List.of("paid"), List.of("paid"), List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Verify: malformed XML is rejected")
+    void convert_malformedXml_shouldThrowException() {
+        // Given
+        byte[] xml = "<root><value>broken</root>".getBytes(StandardCharsets.UTF_8);
+
+        // When / Then
+        assertThatThrownBy(() -> convert(converter, xml))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static byte[] convert(StreamingXmlJsonConverter converter, byte[] xml) throws IOException {
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        converter.convert(new ByteArrayInputStream(xml), json);
+        return json.toByteArray();
+    }
+}
@@ -0,0 +1,243 @@
+package com.file.registry.index;
+
+import static com.file.registry.constants.TestApplicationConstants.JSON_FILE_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.file.registry.exception.InternalErrorException;
+import com.file.registry.properties.StorageProperties;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+public class FileIndexTest {
+
+    private static final String OTHER_JSON_FILE_NAME = "testcustomer_report_2025-12-17.json";
+
+    @TempDir
+    private Path storageDir;
+
+    private StorageProperties storageProperties;
+    private FileIndex fileIndex;
+
+    @BeforeEach
+    void setUp() {
+        storageProperties = new StorageProperties(storageDir.toString());
+        fileIndex = new FileIndex(new IndexJournal(storageProperties));
+    }
+
+    @Test
+    @DisplayName("Verify: rebuild indexes every stored JSON file and ignores other entries")
+    void rebuild_shouldIndexStoredJsonFiles() throws Exception {
+        // Given
+        Files.writeString(storageDir.resolve(JSON_FILE_NAME), "{}");
+        Files.writeString(storageDir.resolve(OTHER_JSON_FILE_NAME), "{}");
+        Files.writeString(storageDir.resolve("notes.txt"), "ignored");
+        Files.writeString(storageDir.resolve("broken_name.json"), "{}");
+        Files.createDirectories(storageDir.resolve("index-by-customer").resolve("testcustomer"));
+
+        // When
+        fileIndex.rebuild(storageDir);
+
+        // Then
+        assertThat(fileIndex.size()).isEqualTo(2);
+        assertThat(fileIndex.findByCustomer("testcustomer"))
+                .as("Customer lookup should return files in sorted order")
+                .containsExactly(JSON_FILE_NAME, OTHER_JSON_FILE_NAME);
+        assertThat(fileIndex.findByType("report")).containsExactly(OTHER_JSON_FILE_NAME);
+        assertThat(fileIndex.findByDate(LocalDate.of(2025, 12, 16))).containsExactly(JSON_FILE_NAME);
+    }
+
+    @Test
+    @DisplayName("Verify: removed file disappears from every dimension")
+    void remove_shouldDropFileFromAllDimensions() {
+        // Given
+        fileIndex.add(JSON_FILE_NAME);
+        fileIndex.add(OTHER_JSON_FILE_NAME);
+
+        // When
+        fileIndex.remove(JSON_FILE_NAME);
+
+        // Then
+        assertThat(fileIndex.findByCustomer("testcustomer")).containsExactly(OTHER_JSON_FILE_NAME);
+        assertThat(fileIndex.findByType("docs")).isEmpty();
+        assertThat(fileIndex.findByDate(LocalDate.of(2025, 12, 16))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Verify: query intersects customer prefix, type and date range in name order")
+    void query_shouldMatchAllCriteria() {
+        // Given
+        fileIndex.add("acme_invoice_2025-03-02.json");
+        fileIndex.add("acme_invoice_2025-04-01.json");
+        fileIndex.add("acmecorp_invoice_2025-03-15.json");
+        fileIndex.add("acme_report_2025-03-10.json");
+        fileIndex.add("globex_invoice_2025-03-05.json");
+        FileQuery marchInvoices = FileQuery.of("acme*", "invoice", LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31));
+
+        // When
+        List<String> result = fileIndex.query(marchInvoices, null).toList();
+
+        // Then
+        assertThat(result).containsExactly("acme_invoice_2025-03-02.json", "acmecorp_invoice_2025-03-15.json");
+        assertThat(fileIndex.query(marchInvoices, "acme_invoice_2025-03-02.json").toList())
+                .as("Query should resume after the given name")
+                .containsExactly("acmecorp_invoice_2025-03-15.json");
+        assertThat(fileIndex.query(FileQuery.of("acme", null, LocalDate.of(2025, 4, 1), null), null).toList())
+                .containsExactly("acme_invoice_2025-04-01.json");
+        assertThat(fileIndex.query(FileQuery.of("initech", "invoice", null, null), null).toList()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Verify: query driven by a date range merges the days in name order")
+    void query_dateRangeDriver_shouldMergeKeysInNameOrder() {
+        // Given
+        fileIndex.add("delta_invoice_2025-03-01.json");
+        fileIndex.add("alpha_invoice_2025-03-03.json");
+        fileIndex.add("charlie_invoice_2025-03-02.json");
+        fileIndex.add("bravo_invoice_2025-03-01.json");
+        fileIndex.add("echo_invoice_2025-04-01.json");
+        fileIndex.add("foxtrot_invoice_2025-04-02.json");
+        FileQuery earlyMarch = FileQuery.of(null, "invoice", LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 3));
+
+        // When
+        List<String> result = fileIndex.query(earlyMarch, null).toList();
+
+        // Then
+        assertThat(result).containsExactly("alpha_invoice_2025-03-03.json", "bravo_invoice_2025-03-01.json",
+                "charlie_invoice_2025-03-02.json", "delta_invoice_2025-03-01.json");
+        assertThat(fileIndex.query(earlyMarch, "bravo_invoice_2025-03-01.json").limit(1).toList())
+                .as("Query should resume after the given name")
+                .containsExactly("charlie_invoice_2025-03-02.json");
+    }
+
+    @Test
+    @DisplayName("Verify: date range lists only dates inside the range, by date and name, from a cursor")
+    void dateRangeFiles_shouldWalkPartitionsInDateOrder() {
+        // Given
+        fileIndex.add("zeta_report_2025-03-01.json");
+        fileIndex.add("acme_report_2025-03-02.json");
+        fileIndex.add("acme_invoice_2025-03-01.json");
+        fileIndex.add("acme_invoice_2025-02-28.json");
+        fileIndex.add("acme_invoice_2025-04-01.json");
+        LocalDate from = LocalDate.of(2025, 3, 1);
+        LocalDate to = LocalDate.of(2025, 3, 31);
+
+        // When
+        List<String> result = fileIndex.dateRangeFiles(from, to, null).toList();
+
+        // Then
+        assertThat(result).containsExactly(
+                "acme_invoice_2025-03-01.json", "zeta_report_2025-03-01.json", "acme_report_2025-03-02.json");
+        assertThat(fileIndex.dateRangeFiles(from, to, "acme_invoice_2025-03-01.json").toList())
+                .as("Range should resume after the cursor within its date partition")
+                .containsExactly("zeta_report_2025-03-01.json", "acme_report_2025-03-02.json");
+        assertThat(fileIndex.dateRangeFiles(from, to, "acme_invoice_2025-04-01.json").toList()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Verify: restore replays journaled mutations without listing storage")
+    void restore_shouldReplayJournal() {
+        // Given
+        fileIndex.restore(storageDir);
+        fileIndex.add(JSON_FILE_NAME);
+        fileIndex.add(OTHER_JSON_FILE_NAME);
+        fileIndex.remove(JSON_FILE_NAME);
+
+        // When
+        FileIndex restarted = new FileIndex(new IndexJournal(storageProperties));
+        restarted.restore(storageDir);
+
+        // Then
+        assertThat(restarted.size()).isEqualTo(1);
+        assertThat(restarted.findByCustomer("testcustomer")).containsExactly(OTHER_JSON_FILE_NAME);
+    }
+
+    @Test
+    @DisplayName("Verify: full journal is compacted into a snapshot that survives restart")
+    void add_fullJournal_shouldCompactIntoSnapshot() throws Exception {
+        // Given
+        FileIndex smallJournalIndex = smallJournalIndex();
+
+        // When
+        for (int day = 1; day <= 20; day++) {
+            smallJournalIndex.add(String.format("acme_invoice_2025-01-%02d.json", day));
+        }
+        smallJournalIndex.compact();
+        FileIndex restarted = smallJournalIndex();
+
+        // Then
+        assertThat(Files.size(storageDir.resolve("small-journal").resolve("index-journal").resolve("snapshot.bin")))
+                .as("Snapshot should contain compacted entries")
+                .isGreaterThan(100L);
+        assertThat(restarted.findByCustomer("acme")).hasSize(20);
+        assertThat(restarted.findByDate(LocalDate.of(2025, 1, 20)))
+                .containsExactly("acme_invoice_2025-01-20.json");
+    }
+
+    @Test
+    @DisplayName("Verify: full journal is compacted on a background thread while mutations continue")
+    void add_fullJournal_shouldCompactInBackground() {
+        // Given
+        FileIndex smallJournalIndex = smallJournalIndex();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> compactingThread = new AtomicReference<>();
+        smallJournalIndex.beforeCompaction(() -> {
+            compactingThread.compareAndSet(null, Thread.currentThread());
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // When
+        for (int day = 1; day <= 5; day++) {
+            smallJournalIndex.add(String.format("acme_invoice_2025-01-%02d.json", day));
+        }
+
+        // Then
+        assertThat(smallJournalIndex.findByCustomer("acme"))
+                .as("Mutations should not wait for the blocked compaction")
+                .hasSize(5);
+        release.countDown();
+        smallJournalIndex.compact();
+        assertThat(compactingThread.get()).isNotNull().isNotSameAs(Thread.currentThread());
+        assertThat(smallJournalIndex().findByCustomer("acme")).hasSize(5);
+    }
+
+    @Test
+    @DisplayName("Verify: mutation that cannot be journaled leaves the index unchanged")
+    void add_recordLargerThanJournal_shouldNotIndexFile() {
+        // Given
+        FileIndex smallJournalIndex = smallJournalIndex();
+        String longFileName = "acme" + "x".repeat(200) + "_invoice_2025-01-01.json";
+
+        // When / Then
+        assertThatThrownBy(() -> smallJournalIndex.add(longFileName))
+                .isInstanceOf(InternalErrorException.class);
+        assertThat(smallJournalIndex.contains(longFileName)).isFalse();
+        assertThat(smallJournalIndex.size()).isZero();
+    }
+
+    private FileIndex smallJournalIndex() {
+        FileIndex smallJournalIndex = new FileIndex(new IndexJournal(smallJournalProperties()));
+        smallJournalIndex.restore(storageDir.resolve("small-journal"));
+        return smallJournalIndex;
+    }
+
+    private StorageProperties smallJournalProperties() {
+        StorageProperties smallJournalProperties =
+                new StorageProperties(storageDir.resolve("small-journal").toString());
+        smallJournalProperties.getIndex().setJournalSize(DataSize.ofBytes(128));
+        return smallJournalProperties;
+    }
+}
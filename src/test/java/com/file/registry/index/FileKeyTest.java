@@ -0,0 +1,45 @@
+package com.file.registry.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class FileKeyTest {
+
+    private static final String XML_EXTENSION = ".xml";
+    private static final String FILE_NAME_PATTERN = "^[a-zA-Z0-9]+_[a-zA-Z0-9]+_\\d{4}-\\d{2}-\\d{2}\\.xml$";
+
+    @Test
+    @DisplayName("Verify: parser accepts exactly the names the former pattern accepted, except impossible dates")
+    void parse_shouldMatchPatternAndRejectImpossibleDates() {
+        // Given
+        List<String> patternNames = List.of(
+                "acme_invoice_2025-12-16.xml", "A1_b2_0001-01-01.xml", "acmexml_shopxml_2024-02-29.xml",
+                "acme_invoice_16.12.2025.xml", "acme-invoice-2025-12-16.xml", "acme_invoice_2025-12-16.json",
+                "_invoice_2025-12-16.xml", "acme__2025-12-16.xml", "acme_in_voice_2025-12-16.xml",
+                "acme_invoice_2025-12-160.xml", "acme_invoice_2025-1a-16.xml", "acmé_invoice_2025-12-16.xml",
+                "acme_invoice_2025-12-16.xml.xml", "acme_invoice_2025-12-16xml", "_2025-12-16.xml", "");
+        List<String> impossibleDates = List.of(
+                "acme_invoice_2025-13-01.xml", "acme_invoice_2025-00-01.xml", "acme_invoice_2025-02-29.xml",
+                "acme_invoice_2025-04-31.xml", "acme_invoice_2025-12-00.xml");
+
+        // When / Then
+        for (String fileName : patternNames) {
+            assertThat(FileKey.isValid(fileName, XML_EXTENSION))
+                    .as(fileName)
+                    .isEqualTo(fileName.matches(FILE_NAME_PATTERN));
+        }
+        for (String fileName : impossibleDates) {
+            assertThat(fileName).matches(FILE_NAME_PATTERN);
+            assertThat(FileKey.parse(fileName, XML_EXTENSION)).as(fileName).isNull();
+        }
+        assertThat(FileKey.isValid(null, XML_EXTENSION)).isFalse();
+        assertThat(FileKey.parse("acmexml_shopxml_2024-02-29.xml", XML_EXTENSION))
+                .isEqualTo(new FileKey("acmexml", "shopxml", LocalDate.of(2024, 2, 29)));
+        assertThat(FileKey.parse("acme_invoice_2025-12-16.json", ".json"))
+                .isEqualTo(new FileKey("acme", "invoice", LocalDate.of(2025, 12, 16)));
+    }
+}
@@ -0,0 +1,234 @@
+package com.file.registry.service;
+
+import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.CUSTOMER_INDEX_NAME;
+import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.DATE_INDEX_NAME;
+import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.TYPE_INDEX_NAME;
+import static com.file.registry.constants.ApplicationConstants.TEMP_EXTENSION;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.file.registry.cache.DocumentCache;
+import com.file.registry.converter.StreamingXmlJsonConverter;
+import com.file.registry.dto.StoredFile;
+import com.file.registry.exception.ConflictException;
+import com.file.registry.exception.NotFoundException;
+import com.file.registry.history.ChangeLog;
+import com.file.registry.index.FileIndex;
+import com.file.registry.index.IndexJournal;
+import com.file.registry.metrics.FileOperationMetrics;
+import com.file.registry.properties.StorageProperties;
+import com.file.registry.storage.BlobStore;
+import com.file.registry.storage.ContentDigestStore;
+import com.file.registry.storage.FileLockManager;
+import com.file.registry.storage.IndexLinks;
+import com.file.registry.storage.StorageLayout;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+public class FileManagementServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 150;
+    private static final List<String> XML_FILE_NAMES = List.of(
+            "acme_invoice_2025-01-01.xml",
+            "acme_report_2025-01-01.xml",
+            "globex_invoice_2025-01-02.xml");
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+    @TempDir
+    private Path storageDir;
+
+    private FileIndex fileIndex;
+    private FileManagementService fileManagementService;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties storageProperties = new StorageProperties(storageDir.toString());
+        storageProperties.getCache().setEnabled(true);
+        fileIndex = new FileIndex(new IndexJournal(storageProperties));
+        fileManagementService = new FileManagementService(
+                storageProperties,
+                new StreamingXmlJsonConverter(new XmlMapper(), jsonMapper),
+                fileIndex,
+                ForkJoinPool.commonPool(),
+                new ContentDigestStore(),
+                new StorageLayout(storageProperties),
+                new IndexLinks(storageProperties, new StorageLayout(storageProperties), fileIndex),
+                new BlobStore(storageProperties),
+                new DocumentCache(storageProperties),
+                new ChangeLog(storageProperties, jsonMapper),
+                new FileLockManager(),
+                new FileOperationMetrics(new SimpleMeterRegistry())
+        );
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Verify: concurrent uploads of the same name never both succeed")
+    void uploadAndDelete_concurrently_shouldKeepStorageAndIndexConsistent() throws Exception {
+        // Given
+        AtomicIntegerArray uploads = new AtomicIntegerArray(XML_FILE_NAMES.size());
+        AtomicIntegerArray deletes = new AtomicIntegerArray(XML_FILE_NAMES.size());
+
+        // When
+        runConcurrently(() -> {
+            int name = ThreadLocalRandom.current().nextInt(XML_FILE_NAMES.size());
+            try {
+                if (ThreadLocalRandom.current().nextBoolean()) {
+                    fileManagementService.upload(multipartXml(XML_FILE_NAMES.get(name)));
+                    uploads.incrementAndGet(name);
+                } else {
+                    fileManagementService.delete(XML_FILE_NAMES.get(name));
+                    deletes.incrementAndGet(name);
+                }
+            } catch (ConflictException | NotFoundException e) {
+                // expected outcome of losing a race
+            }
+        });
+
+        // Then
+        for (int name = 0; name < XML_FILE_NAMES.size(); name++) {
+            boolean exists = Files.exists(storageDir.resolve(jsonName(XML_FILE_NAMES.get(name))));
+            assertThat(uploads.get(name) - deletes.get(name))
+                    .as("Successful uploads minus deletes of %s should match its presence",
+                            XML_FILE_NAMES.get(name))
+                    .isEqualTo(exists ? 1 : 0);
+        }
+        assertStorageInvariants();
+    }
+
+    @Test
+    @DisplayName("Verify: concurrent updates, deletes and reads never expose partial files")
+    void updateDeleteAndRead_concurrently_shouldNeverExposePartialFiles() throws Exception {
+        // When
+        runConcurrently(() -> {
+            String xmlFileName = XML_FILE_NAMES.get(ThreadLocalRandom.current().nextInt(XML_FILE_NAMES.size()));
+            try {
+                switch (ThreadLocalRandom.current().nextInt(3)) {
+                    case 0 -> fileManagementService.update(multipartXml(xmlFileName));
+                    case 1 -> fileManagementService.delete(xmlFileName);
+                    default -> {
+                        StoredFile storedFile = fileManagementService.getStoredFile(xmlFileName);
+                        jsonMapper.readTree(storedFile.toResource().getContentAsByteArray());
+                    }
+                }
+            } catch (NotFoundException | NoSuchFileException e) {
+                // deleted by a concurrent request
+            }
+        });
+
+        // Then
+        assertStorageInvariants();
+    }
+
+    private void runConcurrently(ThrowingRunnable operation) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        for (int thread = 0; thread < THREADS; thread++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        operation.run();
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES))
+                .as("Concurrent operations should finish")
+                .isTrue();
+        assertThat(failures)
+                .as("No operation should fail unexpectedly")
+                .isEmpty();
+    }
+
+    private void assertStorageInvariants() throws Exception {
+        List<String> storedFiles;
+        try (Stream<Path> files = Files.list(storageDir)) {
+            storedFiles = files.filter(Files::isRegularFile)
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(".json"))
+                    .sorted()
+                    .toList();
+        }
+        assertThat(Stream.of("acme", "globex").flatMap(customer -> fileIndex.findByCustomer(customer).stream())
+                .sorted()
+                .toList())
+                .as("Index should contain exactly the stored files")
+                .isEqualTo(storedFiles);
+
+        for (String fileName : storedFiles) {
+            Path file = storageDir.resolve(fileName);
+            byte[] content = Files.readAllBytes(file);
+            assertThat(jsonMapper.readTree(content).isObject())
+                    .as("Stored file %s should be complete JSON", fileName)
+                    .isTrue();
+            assertThat(fileManagementService.getStoredFile(fileName).etag())
+                    .as("ETag of %s should match its content", fileName)
+                    .isEqualTo(HexFormat.of().formatHex(ContentDigestStore.newDigest().digest(content)));
+
+            String[] parts = fileName.substring(0, fileName.length() - ".json".length()).split("_");
+            for (Path link : List.of(
+                    storageDir.resolve(CUSTOMER_INDEX_NAME).resolve(parts[0]).resolve(fileName),
+                    storageDir.resolve(TYPE_INDEX_NAME).resolve(parts[1]).resolve(fileName),
+                    storageDir.resolve(DATE_INDEX_NAME).resolve(parts[2]).resolve(fileName))) {
+                assertThat(Files.isSymbolicLink(link) && Files.isSameFile(link, file))
+                        .as("Index link %s should point to the stored file", link)
+                        .isTrue();
+            }
+        }
+
+        try (Stream<Path> files = Files.walk(storageDir)) {
+            assertThat(files.map(Path::toString).filter(path -> path.endsWith(TEMP_EXTENSION)))
+                    .as("No temporary files should be left behind")
+                    .isEmpty();
+        }
+    }
+
+    private static String jsonName(String xmlFileName) {
+        return xmlFileName.replace(".xml", ".json");
+    }
+
+    private static MockMultipartFile multipartXml(String fileName) {
+        String xml = "<root><value>" + fileName + "</value><nonce>" + System.nanoTime() + "</nonce></root>";
+        return new MockMultipartFile("file", fileName, "application/xml", xml.getBytes());
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+
+        void run() throws Exception;
+    }
+}
@@ -1,9 +1,11 @@
 package com.file.registry.service;
 
+import static com.file.registry.constants.ApplicationConstants.DIGEST_EXTENSION;
 import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.CUSTOMER_INDEX_NAME;
 import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.DATE_INDEX_NAME;
 import static com.file.registry.constants.ApplicationConstants.FilePartsConstants.TYPE_INDEX_NAME;
 import static com.file.registry.constants.ApplicationConstants.JSON_EXTENSION;
+import static com.file.registry.constants.ApplicationConstants.TEMP_EXTENSION;
 import static com.file.registry.constants.ApplicationConstants.XML_EXTENSION;
 import static com.file.registry.constants.TestApplicationConstants.JSON_FILE_NAME;
 import static com.file.registry.constants.TestApplicationConstants.XML_FILE_NAME;
@@ -12,16 +14,60 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.file.registry.cache.DocumentCache;
+import com.file.registry.converter.StreamingXmlJsonConverter;
+import com.file.registry.dto.BatchUploadReport;
+import com.file.registry.dto.FileChanges;
+import com.file.registry.dto.FilePage;
+import com.file.registry.dto.FileUploadStatus;
+import com.file.registry.dto.StoredFile;
+import com.file.registry.exception.BadRequestException;
 import com.file.registry.exception.ConflictException;
 import com.file.registry.exception.NotFoundException;
+import com.file.registry.exception.PayloadTooLargeException;
+import com.file.registry.exception.RestException;
+import com.file.registry.history.ChangeLog;
+import com.file.registry.history.JsonPatches;
+import com.file.registry.index.FileIndex;
+import com.file.registry.index.FileQuery;
+import com.file.registry.index.IndexJournal;
+import com.file.registry.metrics.FileOperationMetrics;
 import com.file.registry.properties.StorageProperties;
+import com.file.registry.storage.BlobStore;
+import com.file.registry.storage.ContentDigestStore;
+import com.file.registry.storage.FileLockManager;
+import com.file.registry.storage.IndexLinks;
+import com.file.registry.storage.IndexScrubber;
+import com.file.registry.storage.SendfileLinks;
+import com.file.registry.storage.StorageLayout;
+import com.file.registry.storage.StorageMigrator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -29,30 +75,28 @@ import org.junit.jupiter.api.io.TempDir;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
 
 public class FileManagementServiceTest {
 
     public static final String STORAGE_FILE = "storage";
 
     private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     @TempDir
     private Path tempStorageDir;
 
+    private StorageProperties storageProperties;
     private FileManagementService fileManagementService;
 
     @BeforeEach
     void setUp() throws Exception {
-        XmlMapper xmlMapper = new XmlMapper();
         String storageLocation = tempStorageDir + "/storage";
         Files.createDirectories(Path.of(storageLocation));
-        StorageProperties storageProperties = new StorageProperties(storageLocation);
+        storageProperties = new StorageProperties(storageLocation);
 
-        fileManagementService = new FileManagementService(
-                xmlMapper,
-                storageProperties,
-                jsonMapper
-        );
+        fileManagementService = createService(storageProperties);
     }
 
     @Test
@@ -75,6 +119,42 @@ public class FileManagementServiceTest {
                 .isTrue();
     }
 
+    @Test
+    @DisplayName("Verify: stored file and its digest get the default permissions of a new file")
+    void upload_shouldStoreFilesWithDefaultPermissions() throws Exception {
+        // Given
+        Path storageRoot = tempStorageDir.resolve(STORAGE_FILE);
+        Set<PosixFilePermission> defaults = Files.getPosixFilePermissions(
+                Files.createFile(storageRoot.resolve("defaults.txt")));
+
+        // When
+        fileManagementService.upload(createMultipartFileFromResource());
+
+        // Then
+        assertThat(Files.getPosixFilePermissions(storageRoot.resolve(JSON_FILE_NAME)))
+                .as("Stored file should not be restricted to the owner like a temporary file")
+                .isEqualTo(defaults);
+        assertThat(Files.getPosixFilePermissions(storageRoot.resolve(JSON_FILE_NAME + DIGEST_EXTENSION)))
+                .isEqualTo(defaults);
+    }
+
+    @Test
+    @DisplayName("Verify: only the extension is swapped when a name part itself ends with xml")
+    void upload_namePartEndingWithXml_shouldKeepNameIntact() {
+        // Given
+        String fileName = "shopxml_invoice_2025-01-01.xml";
+
+        // When
+        fileManagementService.upload(multipartXml(fileName));
+
+        // Then
+        assertThat(tempStorageDir.resolve(STORAGE_FILE).resolve("shopxml_invoice_2025-01-01.json")).exists();
+        assertThat(fileManagementService.getFilesByCustomer("shopxml"))
+                .containsExactly("shopxml_invoice_2025-01-01.json");
+        assertThat(fileManagementService.getStoredFile(fileName).fileName())
+                .isEqualTo("shopxml_invoice_2025-01-01.json");
+    }
+
     @Test
     @DisplayName("Upload existing XML file should throw ConflictException (409)")
     void uploadExistingXmlFile_shouldThrowConflictException() throws Exception {
@@ -124,6 +204,223 @@ public class FileManagementServiceTest {
                 .isTrue();
     }
 
+    @Test
+    @DisplayName("Verify: a stored file read before an update is no longer opened once the update replaced it")
+    void storedFile_replacedByUpdate_shouldNotOpen() throws Exception {
+        // Given
+        String fileName = "acme_invoice_2025-01-01.xml";
+        fileManagementService.upload(fileName, xmlBody("<root><value>old</value></root>"));
+        StoredFile before = fileManagementService.getStoredFile(fileName);
+
+        try (FileChannel pinned = before.open()) {
+            // When
+            fileManagementService.update(fileName, xmlBody("<root><value>new</value></root>"));
+
+            // Then
+            assertThat(before.open())
+                    .as("The validators read before the update no longer describe the file")
+                    .isNull();
+            ByteBuffer content = ByteBuffer.allocate((int) before.length());
+            pinned.read(content, 0);
+            assertThat(new String(content.array(), StandardCharsets.UTF_8))
+                    .as("A file opened before the update keeps serving the old content")
+                    .contains("old");
+        }
+        StoredFile after = fileManagementService.getStoredFile(fileName);
+        try (FileChannel reopened = after.open()) {
+            assertThat(reopened).isNotNull();
+            assertThat(reopened.size()).isEqualTo(after.length());
+        }
+    }
+
+    @Test
+    @DisplayName("Verify: a sendfile link keeps the bytes it was made for and is refused for a replaced file")
+    void sendfileLink_replacedByUpdate_shouldKeepLinkedContent() throws Exception {
+        // Given
+        String fileName = "acme_invoice_2025-01-01.xml";
+        fileManagementService.upload(fileName, xmlBody("<root><value>old</value></root>"));
+        StoredFile before = fileManagementService.getStoredFile(fileName);
+        SendfileLinks sendfileLinks = new SendfileLinks(storageProperties);
+        sendfileLinks.start();
+        Path link = sendfileLinks.link(before);
+
+        // When
+        fileManagementService.update(fileName, xmlBody("<root><value>new</value></root>"));
+
+        // Then
+        assertThat(Files.readString(link))
+                .as("A link made before the update keeps the content its validators describe")
+                .contains("old");
+        assertThat(sendfileLinks.link(before))
+                .as("The validators read before the update no longer describe the file")
+                .isNull();
+        sendfileLinks.close();
+        assertThat(link).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Verify: a multipart upload is hashed while it is converted, without a separate read")
+    void upload_multipart_shouldHashSourceInConversionPass() throws Exception {
+        // Given
+        byte[] xml = "<root><value>once</value></root>".getBytes(StandardCharsets.UTF_8);
+        AtomicInteger reads = new AtomicInteger();
+        MockMultipartFile file = new MockMultipartFile("file", "acme_invoice_2025-01-01.xml", "application/xml", xml) {
+            @Override
+            public InputStream getInputStream() {
+                reads.incrementAndGet();
+                return new ByteArrayInputStream(xml);
+            }
+        };
+
+        // When
+        fileManagementService.upload(file);
+
+        // Then
+        Path filePath = Path.of(storageProperties.getPath()).resolve("acme_invoice_2025-01-01.json");
+        assertThat(reads.get()).isEqualTo(1);
+        assertThat(new ContentDigestStore().readSource(filePath))
+                .isEqualTo(ContentDigestStore.hash(new ByteArrayInputStream(xml)));
+    }
+
+    @Test
+    @DisplayName("Verify: a failed update keeps the digest and source of the stored file")
+    void update_failedConversion_shouldKeepDigestSidecar() throws Exception {
+        // Given
+        storageProperties.setDeduplication(true);
+        FileManagementService dedupService = createService(storageProperties);
+        byte[] xml = "<root><value>kept</value></root>".getBytes(StandardCharsets.UTF_8);
+        dedupService.upload(new MockMultipartFile("file", "acme_invoice_2025-01-01.xml", "application/xml", xml));
+        Path filePath = Path.of(storageProperties.getPath()).resolve("acme_invoice_2025-01-01.json");
+        ContentDigestStore digestStore = new ContentDigestStore();
+        String source = digestStore.readSource(filePath);
+
+        // When
+        assertThatThrownBy(() -> dedupService.update("acme_invoice_2025-01-01.xml", xmlBody("<root><value>")))
+                .isInstanceOf(RestException.class);
+
+        // Then
+        assertThat(source).isNotNull();
+        assertThat(digestStore.readSource(filePath))
+                .as("The sidecar should only be replaced once new content is in place")
+                .isEqualTo(source);
+    }
+
+    @Test
+    @DisplayName("Verify: update with unchanged content is skipped without rewriting the file or its history")
+    void update_unchangedContent_shouldSkipWrite() throws Exception {
+        // Given
+        storageProperties.getHistory().setEnabled(true);
+        FileManagementService historyService = createService(storageProperties);
+        byte[] xml = "<root><value>same</value></root>".getBytes(StandardCharsets.UTF_8);
+        Path storageRoot = Path.of(storageProperties.getPath());
+        Path filePath = storageRoot.resolve("acme_invoice_2025-01-01.json");
+        historyService.upload(new MockMultipartFile("file", "acme_invoice_2025-01-01.xml", "application/xml", xml));
+        final Object storedFile = Files.readAttributes(filePath, BasicFileAttributes.class).fileKey();
+
+        // When
+        historyService.update(new MockMultipartFile("file", "acme_invoice_2025-01-01.xml", "application/xml", xml));
+        historyService.update("acme_invoice_2025-01-01.xml",
+                new ByteArrayInputStream("<root>\n  <value>same</value>\n</root>".getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        assertThat(Files.readAttributes(filePath, BasicFileAttributes.class).fileKey())
+                .as("An unchanged update should not replace the file")
+                .isEqualTo(storedFile);
+        assertThat(meterRegistry.get("file.update.unchanged").tag("match", "source").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("file.update.unchanged").tag("match", "content").counter().count())
+                .isEqualTo(1);
+        assertThat(historyService.getChanges("acme_invoice_2025-01-01.xml", null, null).currentVersion())
+                .as("No version should be added for an unchanged update")
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Verify: change history returns the patch between any two recorded versions")
+    void getChanges_shouldDiffBetweenVersions() throws Exception {
+        // Given
+        storageProperties.getHistory().setEnabled(true);
+        FileManagementService historyService = createService(storageProperties);
+        String fileName = "acme_invoice_2025-01-01.xml";
+        historyService.upload(fileName, xmlBody("<root><value>1</value><items><item>a</item></items></root>"));
+        historyService.update(fileName, xmlBody("<root><value>2</value><items><item>a</item></items></root>"));
+        historyService.update(fileName, xmlBody("<root><value>3</value><extra>x</extra></root>"));
+
+        // When
+        FileChanges last = historyService.getChanges(fileName, null, null);
+        FileChanges all = historyService.getChanges(fileName, 1, 3);
+        FileChanges back = historyService.getChanges(fileName, 3, 1);
+
+        // Then
+        assertThat(last.fromVersion()).isEqualTo(2);
+        assertThat(last.toVersion()).isEqualTo(3);
+        assertThat(all.currentVersion()).isEqualTo(3);
+        JsonNode first = jsonMapper.readTree("{\"value\":\"1\",\"items\":{\"item\":\"a\"}}");
+        JsonNode current = jsonMapper.readTree(historyService.getStoredFile(fileName).toResource().getInputStream());
+        assertThat(JsonPatches.apply(first.deepCopy(), all.patch())).isEqualTo(current);
+        assertThat(JsonPatches.apply(current.deepCopy(), back.patch())).isEqualTo(first);
+        assertThatThrownBy(() -> historyService.getChanges(fileName, 1, 4))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Unknown version 4");
+
+        historyService.delete(fileName);
+        historyService.upload(fileName, xmlBody("<root><value>new</value></root>"));
+        assertThat(historyService.getChanges(fileName, null, null).currentVersion())
+                .as("A deleted file's history should not carry over to a new file of the same name")
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Verify: a change log record torn by a crash is truncated before the next change is appended")
+    void update_tornChangeRecord_shouldContinueVersions() throws Exception {
+        // Given
+        storageProperties.getHistory().setEnabled(true);
+        FileManagementService historyService = createService(storageProperties);
+        String fileName = "acme_invoice_2025-01-01.xml";
+        historyService.upload(fileName, xmlBody("<root><value>1</value></root>"));
+        historyService.update(fileName, xmlBody("<root><value>2</value></root>"));
+        Path historyPath = Path.of(storageProperties.getPath()).resolve(ChangeLog.HISTORY_DIRECTORY);
+        Path changesPath;
+        try (Stream<Path> paths = Files.walk(historyPath)) {
+            changesPath = paths.filter(Files::isRegularFile).findFirst().orElseThrow();
+        }
+        Files.writeString(changesPath, "{\"version\":3,\"ti", StandardOpenOption.APPEND);
+
+        // When
+        historyService.update(fileName, xmlBody("<root><value>3</value></root>"));
+
+        // Then
+        FileChanges all = historyService.getChanges(fileName, 1, 3);
+        assertThat(all.currentVersion()).isEqualTo(3);
+        assertThat(all.patch().toString()).contains("\"3\"");
+        assertThat(Files.readAllLines(changesPath))
+                .as("The torn record should be gone and every record on a line of its own")
+                .hasSize(2)
+                .allSatisfy(line -> assertThat(line).startsWith("{\"version\":").endsWith("}"));
+    }
+
+    @Test
+    @DisplayName("Verify: a change to a document with duplicate fields is recorded without a patch")
+    void update_duplicateFields_shouldRecordChangeWithoutPatch() throws Exception {
+        // Given
+        storageProperties.getHistory().setEnabled(true);
+        FileManagementService historyService = createService(storageProperties);
+        String fileName = "acme_invoice_2025-01-01.xml";
+        historyService.upload(fileName, xmlBody("<root><value>1</value></root>"));
+        Path filePath = Path.of(storageProperties.getPath()).resolve("acme_invoice_2025-01-01.json");
+        // as written by the converter for a repeated element it had to spill
+        Files.writeString(filePath, "{\"item\":\"a\",\"item\":\"b\"}");
+
+        // When
+        historyService.update(fileName, xmlBody("<root><item>c</item></root>"));
+
+        // Then
+        assertThat(historyService.getChanges(fileName, 2, 2).currentVersion()).isEqualTo(2);
+        assertThatThrownBy(() -> historyService.getChanges(fileName, 1, 2))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("without a patch");
+    }
+
     @Test
     @DisplayName("Verify: getByName returns Resource for existing file")
     void getByName_shouldReturnRequestedFile() throws Exception {
@@ -147,6 +444,428 @@ public class FileManagementServiceTest {
                 .isEqualTo(mainJsonFile);
     }
 
+    @Test
+    @DisplayName("Verify: stored file ETag is the content digest and changes with the content")
+    void getStoredFile_shouldExposeContentDigestAsEtag() throws Exception {
+        // Given
+        fileManagementService.upload(multipartXml(XML_FILE_NAME));
+        StoredFile initial = fileManagementService.getStoredFile(XML_FILE_NAME);
+
+        // When
+        fileManagementService.update(new MockMultipartFile(
+                "file", XML_FILE_NAME, "application/xml", "<root><value>changed</value></root>".getBytes()));
+        StoredFile updated = fileManagementService.getStoredFile(XML_FILE_NAME);
+
+        // Then
+        byte[] content = Files.readAllBytes(updated.path());
+        assertThat(updated.etag())
+                .as("ETag should be the SHA-256 of the stored content")
+                .isEqualTo(HexFormat.of().formatHex(ContentDigestStore.newDigest().digest(content)));
+        assertThat(updated.etag()).isNotEqualTo(initial.etag());
+        assertThat(updated.length()).isEqualTo(content.length);
+    }
+
+    @Test
+    @DisplayName("Verify: cached document is served from memory and invalidated by update")
+    void getStoredFile_cacheEnabled_shouldServeCachedContentUntilUpdate() throws Exception {
+        // Given
+        storageProperties.getCache().setEnabled(true);
+        FileManagementService cachingService = createService(storageProperties);
+        cachingService.upload(multipartXml(XML_FILE_NAME));
+        StoredFile initial = cachingService.getStoredFile(XML_FILE_NAME);
+        byte[] initialContent = Files.readAllBytes(initial.path());
+
+        // When
+        StoredFile cached = cachingService.getStoredFile(XML_FILE_NAME);
+        cachingService.update(new MockMultipartFile(
+                "file", XML_FILE_NAME, "application/xml", "<root><value>changed</value></root>".getBytes()));
+        StoredFile updated = cachingService.getStoredFile(XML_FILE_NAME);
+
+        // Then
+        assertThat(cached.isCached())
+                .as("Second read should be served from the cache")
+                .isTrue();
+        assertThat(cached.toResource().getContentAsByteArray())
+                .isEqualTo(initialContent);
+        assertThat(updated.etag())
+                .as("Update should invalidate the cached document")
+                .isNotEqualTo(initial.etag());
+        assertThat(updated.toResource().getContentAsString(StandardCharsets.UTF_8))
+                .contains("changed");
+    }
+
+    @Test
+    @DisplayName("Verify: compact format stores JSON without indentation")
+    void upload_jsonFormat_shouldStoreCompactJson() throws Exception {
+        // Given
+        storageProperties.setFormat(StorageProperties.Format.JSON);
+        FileManagementService compactService = createService(storageProperties);
+
+        // When
+        compactService.upload(createMultipartFileFromResource());
+
+        // Then
+        Path mainJsonFile = tempStorageDir.resolve(STORAGE_FILE).resolve(JSON_FILE_NAME);
+        String content = Files.readString(mainJsonFile);
+        assertThat(content)
+                .as("Compact JSON should contain no line breaks")
+                .doesNotContain("\n");
+        assertMainJsonFileExistsAndIsValidJson(mainJsonFile);
+    }
+
+    @Test
+    @DisplayName("Verify: sharded layout serves flat files until migrated, then moves them with their links")
+    void shardedLayout_shouldResolveFlatFilesAndMigrateThem() throws Exception {
+        // Given
+        fileManagementService.upload(multipartXml("acme_invoice_2025-01-01.xml"));
+        storageProperties.setLayout(StorageProperties.Layout.SHARDED);
+        StorageLayout shardedLayout = new StorageLayout(storageProperties);
+        FileManagementService shardedService = createService(storageProperties);
+        shardedService.upload(multipartXml("acme_invoice_2025-01-02.xml"));
+        Path storageRoot = Path.of(storageProperties.getPath());
+        StorageMigrator migrator = new StorageMigrator(storageProperties, shardedLayout, new FileLockManager(),
+                new ContentDigestStore(), new DocumentCache(storageProperties),
+                new IndexLinks(storageProperties, shardedLayout, new FileIndex(new IndexJournal(storageProperties))));
+
+        // When
+        String flatEtag = shardedService.getStoredFile("acme_invoice_2025-01-01.xml").etag();
+        int moved = migrator.migrate();
+
+        // Then
+        Path shardedFile = shardedLayout.resolve("acme_invoice_2025-01-01.json");
+        assertThat(moved).isEqualTo(1);
+        assertThat(storageRoot.resolve("acme_invoice_2025-01-01.json")).doesNotExist();
+        assertThat(shardedFile).startsWith(storageRoot.resolve(StorageLayout.DATA_DIRECTORY)).isRegularFile();
+        assertThat(shardedLayout.resolve("acme_invoice_2025-01-02.json")).isRegularFile();
+        assertThat(storageRoot.resolve(CUSTOMER_INDEX_NAME).resolve("acme").resolve("acme_invoice_2025-01-01.json"))
+                .as("Index link should follow the migrated file")
+                .isRegularFile();
+        assertThat(shardedService.getStoredFile("acme_invoice_2025-01-01.xml").etag()).isEqualTo(flatEtag);
+        FileIndex rebuilt = new FileIndex(new IndexJournal(storageProperties));
+        rebuilt.rebuild(storageRoot);
+        assertThat(rebuilt.findByCustomer("acme"))
+                .containsExactly("acme_invoice_2025-01-01.json", "acme_invoice_2025-01-02.json");
+    }
+
+    @Test
+    @DisplayName("Verify: deduplication links identical uploads to one blob and collects it after the last delete")
+    void upload_deduplication_shouldShareBlobUntilLastReferenceIsDeleted() throws Exception {
+        // Given
+        storageProperties.setDeduplication(true);
+        FileManagementService dedupService = createService(storageProperties);
+        byte[] xml = "<root><value>same</value></root>".getBytes(StandardCharsets.UTF_8);
+        Path storageRoot = Path.of(storageProperties.getPath());
+        final Path blobRoot = storageRoot.resolve(BlobStore.BLOB_DIRECTORY);
+
+        // When
+        dedupService.upload(new MockMultipartFile("file", "acme_invoice_2025-01-01.xml", "application/xml", xml));
+        dedupService.upload(new MockMultipartFile("file", "acme_invoice_2025-02-01.xml", "application/xml", xml));
+
+        // Then
+        Path first = storageRoot.resolve("acme_invoice_2025-01-01.json");
+        Path second = storageRoot.resolve("acme_invoice_2025-02-01.json");
+        assertThat(Files.isSameFile(first, second))
+                .as("Identical uploads should be links to the same blob")
+                .isTrue();
+        assertThat(meterRegistry.get("file.blob.reuses").tag("match", "source").counter().count()).isEqualTo(1);
+        assertThat(dedupService.getStoredFile("acme_invoice_2025-02-01.xml").etag())
+                .isEqualTo(dedupService.getStoredFile("acme_invoice_2025-01-01.xml").etag());
+
+        dedupService.delete("acme_invoice_2025-01-01.xml");
+        assertThat(blobFiles(blobRoot)).hasSize(1);
+        dedupService.delete("acme_invoice_2025-02-01.xml");
+        assertThat(blobFiles(blobRoot))
+                .as("Blob should be collected once no file links to it")
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Verify: the conversion plan of a type applies to its files only and keeps its own source aliases")
+    void upload_conversionPlan_shouldTypeValuesOfPlannedTypeOnly() throws Exception {
+        // Given
+        StorageProperties.Conversion.Plan plan = new StorageProperties.Conversion.Plan();
+        plan.getNumbers().add("amount");
+        plan.getArrays().add("line");
+        storageProperties.getConversion().getPlans().put("invoice", plan);
+        storageProperties.setDeduplication(true);
+        FileManagementService typedService = createService(storageProperties);
+        byte[] xml = "<root><amount>12.50</amount><line>a</line></root>".getBytes(StandardCharsets.UTF_8);
+        Path storageRoot = Path.of(storageProperties.getPath());
+
+        // When
+        typedService.upload(new MockMultipartFile("file", "acme_invoice_2025-01-01.xml", "application/xml", xml));
+        typedService.upload(new MockMultipartFile("file", "acme_report_2025-01-01.xml", "application/xml", xml));
+
+        // Then
+        JsonNode typed = jsonMapper.readTree(storageRoot.resolve("acme_invoice_2025-01-01.json").toFile());
+        JsonNode untyped = jsonMapper.readTree(storageRoot.resolve("acme_report_2025-01-01.json").toFile());
+        assertThat(typed.get("amount").isNumber()).isTrue();
+        assertThat(typed.get("line").isArray()).isTrue();
+        assertThat(untyped.get("amount").asText()).isEqualTo("12.50");
+        assertThat(untyped.get("line").isTextual()).isTrue();
+        assertThat(meterRegistry.find("file.blob.reuses").tag("match", "source").counter())
+                .as("Identical XML of another type should not reuse the typed conversion")
+                .isNull();
+    }
+
+    @Test
+    @DisplayName("Verify: request body upload is converted as read and hashed for deduplication in full")
+    void uploadBody_shouldStoreStreamedXmlAndRecordItsSourceHash() throws Exception {
+        // Given
+        storageProperties.setDeduplication(true);
+        FileManagementService dedupService = createService(storageProperties);
+        byte[] xml = "<root><value>same</value></root>\n<!-- trailer -->\n".getBytes(StandardCharsets.UTF_8);
+        Path storageRoot = Path.of(storageProperties.getPath());
+
+        // When
+        dedupService.upload("acme_invoice_2025-01-01.xml", new ByteArrayInputStream(xml));
+        dedupService.upload(new MockMultipartFile("file", "acme_invoice_2025-02-01.xml", "application/xml", xml));
+
+        // Then
+        assertThat(jsonMapper.readTree(storageRoot.resolve("acme_invoice_2025-01-01.json").toFile())
+                .path("value").asText()).isEqualTo("same");
+        assertThat(meterRegistry.get("file.blob.reuses").tag("match", "source").counter().count())
+                .as("Source hash of the body should cover the bytes after the root element")
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("file.bytes.received").counter().count()).isEqualTo(2.0 * xml.length);
+        assertThatThrownBy(() -> dedupService.update("invalid-name.xml", new ByteArrayInputStream(xml)))
+                .isInstanceOf(BadRequestException.class);
+
+        storageProperties.setMaxBodySize(DataSize.ofBytes(16));
+        FileManagementService limitedService = createService(storageProperties);
+        assertThatThrownBy(() -> limitedService.upload("acme_invoice_2025-03-01.xml", new ByteArrayInputStream(xml)))
+                .isInstanceOf(PayloadTooLargeException.class);
+        try (Stream<Path> files = Files.list(storageRoot)) {
+            assertThat(files.map(Path::toString))
+                    .as("Rejected body should leave no temporary file behind")
+                    .noneMatch(name -> name.endsWith(TEMP_EXTENSION));
+        }
+    }
+
+    @Test
+    @DisplayName("Verify: write-behind index links are applied before compaction and recovered after a crash")
+    void upload_writeBehindLinks_shouldFlushOnCompactionAndRecoverFromJournal() throws Exception {
+        // Given
+        storageProperties.getIndex().setWriteBehind(true);
+        storageProperties.getIndex().setFlushInterval(Duration.ofHours(1));
+        StorageLayout storageLayout = new StorageLayout(storageProperties);
+        FileIndex fileIndex = new FileIndex(new IndexJournal(storageProperties));
+        IndexLinks indexLinks = new IndexLinks(storageProperties, storageLayout, fileIndex);
+        indexLinks.start();
+        FileManagementService writeBehindService = createService(storageProperties, fileIndex, indexLinks);
+        Path customerIndex = Path.of(storageProperties.getPath()).resolve(CUSTOMER_INDEX_NAME).resolve("acme");
+
+        // When
+        writeBehindService.upload(multipartXml("acme_invoice_2025-01-01.xml"));
+
+        // Then
+        assertThat(customerIndex.resolve("acme_invoice_2025-01-01.json"))
+                .as("Link should be queued instead of written by the upload")
+                .doesNotExist();
+        assertThat(writeBehindService.getFilesByCustomer("acme")).containsExactly("acme_invoice_2025-01-01.json");
+        fileIndex.compact();
+        assertThat(customerIndex.resolve("acme_invoice_2025-01-01.json")).isRegularFile();
+
+        // When the process dies with a queued link
+        writeBehindService.upload(multipartXml("acme_invoice_2025-01-02.xml"));
+        FileIndex restarted = new FileIndex(new IndexJournal(storageProperties));
+        restarted.restore(Path.of(storageProperties.getPath()));
+        IndexLinks recovered = new IndexLinks(storageProperties, storageLayout, restarted);
+        recovered.start();
+        recovered.recover();
+
+        // Then
+        assertThat(customerIndex.resolve("acme_invoice_2025-01-02.json"))
+                .as("Link of a journaled file should be recreated on recovery")
+                .isRegularFile();
+        recovered.close();
+        indexLinks.close();
+    }
+
+    @Test
+    @DisplayName("Verify: scrubber removes dangling links, restores missing ones and drops empty index directories")
+    void indexScrubber_shouldRepairLinksAgainstIndex() throws Exception {
+        // Given
+        storageProperties.getScrubber().setRate(1_000_000);
+        FileIndex fileIndex = new FileIndex(new IndexJournal(storageProperties));
+        StorageLayout storageLayout = new StorageLayout(storageProperties);
+        IndexLinks indexLinks = new IndexLinks(storageProperties, storageLayout, fileIndex);
+        FileManagementService service = createService(storageProperties, fileIndex, indexLinks);
+        final IndexScrubber scrubber = new IndexScrubber(storageProperties, fileIndex, storageLayout, indexLinks,
+                new FileLockManager());
+        service.upload(multipartXml("acme_invoice_2025-01-01.xml"));
+        service.upload(multipartXml("acme_invoice_2025-01-02.xml"));
+        Path storageRoot = Path.of(storageProperties.getPath());
+        Path missingLink = storageRoot.resolve(CUSTOMER_INDEX_NAME).resolve("acme")
+                .resolve("acme_invoice_2025-01-01.json");
+        Path danglingLink = storageRoot.resolve(TYPE_INDEX_NAME).resolve("invoice")
+                .resolve("ghost_invoice_2025-01-03.json");
+        Path emptyDirectory = storageRoot.resolve(DATE_INDEX_NAME).resolve("2020-01-01");
+        Path tempLink = missingLink.resolveSibling("acme_invoice_2025-01-04.json" + TEMP_EXTENSION);
+        Files.delete(missingLink);
+        Files.createSymbolicLink(tempLink, storageRoot.resolve("acme_invoice_2025-01-04.json"));
+        Files.createSymbolicLink(danglingLink, storageRoot.resolve("ghost_invoice_2025-01-03.json"));
+        Files.createDirectories(emptyDirectory);
+
+        // When
+        int repaired = scrubber.scrub();
+
+        // Then
+        assertThat(repaired).isEqualTo(2);
+        assertThat(missingLink).isRegularFile();
+        assertThat(Files.exists(danglingLink, LinkOption.NOFOLLOW_LINKS))
+                .as("Link to a file that is not indexed should be removed")
+                .isFalse();
+        assertThat(emptyDirectory).doesNotExist();
+        assertThat(Files.exists(tempLink, LinkOption.NOFOLLOW_LINKS))
+                .as("Link still being written under a temporary name should be left alone")
+                .isTrue();
+        assertThat(scrubber.scrub())
+                .as("A second pass should find nothing to repair")
+                .isZero();
+    }
+
+    @Test
+    @DisplayName("Verify: scrubber rejects a rate that is not positive")
+    void indexScrubber_nonPositiveRate_shouldFailAtStartup() {
+        // Given
+        storageProperties.getScrubber().setRate(0);
+        FileIndex fileIndex = new FileIndex(new IndexJournal(storageProperties));
+        StorageLayout storageLayout = new StorageLayout(storageProperties);
+        IndexLinks indexLinks = new IndexLinks(storageProperties, storageLayout, fileIndex);
+
+        // When / Then
+        assertThatThrownBy(() -> new IndexScrubber(storageProperties, fileIndex, storageLayout, indexLinks,
+                new FileLockManager()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("scrubber.rate");
+    }
+
+    @Test
+    @DisplayName("Verify: gzip format stores compressed JSON that is decoded on read")
+    void upload_gzipFormat_shouldStoreCompressedJsonAndDecodeOnRead() throws Exception {
+        // Given
+        storageProperties.setFormat(StorageProperties.Format.GZIP_JSON);
+        FileManagementService gzipService = createService(storageProperties);
+
+        // When
+        gzipService.upload(createMultipartFileFromResource());
+        StoredFile storedFile = gzipService.getStoredFile(XML_FILE_NAME);
+
+        // Then
+        byte[] stored = Files.readAllBytes(storedFile.path());
+        assertThat(stored[0] & 0xff)
+                .as("Stored file should start with the gzip magic number")
+                .isEqualTo(0x1f);
+        assertThat(storedFile.isCompressed()).isTrue();
+        byte[] decoded = storedFile.toResource().getContentAsByteArray();
+        assertThat(storedFile.toResource().contentLength()).isEqualTo(decoded.length);
+        assertThat(jsonMapper.readTree(decoded))
+                .as("Decoded content should be the converted JSON")
+                .isEqualTo(jsonMapper.readTree(gzipService.getByName(XML_FILE_NAME).getContentAsByteArray()));
+        assertThat(jsonMapper.readTree(decoded).isObject()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Verify: operations are timed by outcome and save phases are recorded")
+    void upload_shouldRecordOperationAndPhaseMetrics() throws Exception {
+        // Given
+        MockMultipartFile multipartFile = createMultipartFileFromResource();
+        fileManagementService.upload(multipartFile);
+
+        // When
+        assertThatThrownBy(() -> fileManagementService.upload(multipartFile))
+                .isInstanceOf(ConflictException.class);
+
+        // Then
+        assertThat(meterRegistry.get("file.operation").tags("operation", "upload", "outcome", "success")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("file.operation").tags("operation", "upload", "outcome", "conflict")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("file.save.phase").timers())
+                .as("Convert, commit and index phases should be timed")
+                .hasSize(3);
+        assertThat(meterRegistry.get("file.bytes.received").counter().count())
+                .isEqualTo(multipartFile.getSize());
+    }
+
+    @Test
+    @DisplayName("Verify: customer files are paged in name order with continuation cursors")
+    void getFilesByCustomer_withLimit_shouldPageThroughAllFiles() {
+        // Given
+        for (int day = 1; day <= 5; day++) {
+            fileManagementService.upload(multipartXml(String.format("acme_invoice_2025-01-%02d.xml", day)));
+        }
+
+        // When
+        FilePage first = fileManagementService.getFilesByCustomer("acme", null, 2);
+        FilePage second = fileManagementService.getFilesByCustomer("acme", first.nextCursor(), 2);
+        FilePage last = fileManagementService.getFilesByCustomer("acme", second.nextCursor(), 2);
+
+        // Then
+        assertThat(first.files()).containsExactly("acme_invoice_2025-01-01.json", "acme_invoice_2025-01-02.json");
+        assertThat(second.files()).containsExactly("acme_invoice_2025-01-03.json", "acme_invoice_2025-01-04.json");
+        assertThat(last.files()).containsExactly("acme_invoice_2025-01-05.json");
+        assertThat(last.nextCursor())
+                .as("Last page should not return a cursor")
+                .isNull();
+        assertThat(fileManagementService.streamFilesByCustomer("acme", first.nextCursor()).toList())
+                .containsExactly("acme_invoice_2025-01-03.json", "acme_invoice_2025-01-04.json",
+                        "acme_invoice_2025-01-05.json");
+        assertThatThrownBy(() -> fileManagementService.getFilesByCustomer("acme", "not base64!", 2))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    @DisplayName("Verify: query pages matching files and rejects empty criteria and reversed ranges")
+    void findFiles_shouldPageMatchingFilesAndValidateQuery() {
+        // Given
+        for (int day = 1; day <= 3; day++) {
+            fileManagementService.upload(multipartXml(String.format("acme_invoice_2025-03-%02d.xml", day)));
+        }
+        fileManagementService.upload(multipartXml("acme_report_2025-03-01.xml"));
+        FileQuery query = FileQuery.of("acme", "inv*", LocalDate.of(2025, 3, 2), null);
+
+        // When
+        FilePage first = fileManagementService.findFiles(query, null, 1);
+        FilePage last = fileManagementService.findFiles(query, first.nextCursor(), 1);
+
+        // Then
+        assertThat(first.files()).containsExactly("acme_invoice_2025-03-02.json");
+        assertThat(last.files()).containsExactly("acme_invoice_2025-03-03.json");
+        assertThat(last.nextCursor()).isNull();
+        assertThatThrownBy(() -> fileManagementService.findFiles(FileQuery.of(null, null, null, null), null, 1))
+                .isInstanceOf(BadRequestException.class);
+        FileQuery reversed = FileQuery.of(null, null, LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 1));
+        assertThatThrownBy(() -> fileManagementService.streamFiles(reversed, null))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    @DisplayName("Verify: date range pages across dates and rejects reversed ranges and foreign cursors")
+    void getFilesByDateRange_shouldPageAcrossDates() {
+        // Given
+        fileManagementService.upload(multipartXml("acme_invoice_2025-01-31.xml"));
+        fileManagementService.upload(multipartXml("globex_invoice_2025-02-01.xml"));
+        fileManagementService.upload(multipartXml("acme_invoice_2025-02-01.xml"));
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 12, 31);
+
+        // When
+        FilePage first = fileManagementService.getFilesByDateRange(from, to, null, 2);
+        FilePage last = fileManagementService.getFilesByDateRange(from, to, first.nextCursor(), 2);
+
+        // Then
+        assertThat(first.files()).containsExactly("acme_invoice_2025-01-31.json", "acme_invoice_2025-02-01.json");
+        assertThat(last.files()).containsExactly("globex_invoice_2025-02-01.json");
+        assertThat(last.nextCursor()).isNull();
+        assertThatThrownBy(() -> fileManagementService.getFilesByDateRange(to, from, null, 2))
+                .isInstanceOf(BadRequestException.class);
+        String foreignCursor = FilePage.encodeCursor("not-a-file");
+        assertThatThrownBy(() -> fileManagementService.streamFilesByDateRange(from, to, foreignCursor))
+                .isInstanceOf(BadRequestException.class);
+    }
+
     @Test
     @DisplayName("Verify: getByName throws NotFoundException for missing file")
     void getByName_throwsNotFoundException_whenFileDoesNotExist() {
@@ -277,6 +996,19 @@ public class FileManagementServiceTest {
         assertThatThrownBy(() -> fileManagementService.getByName(originalFileName))
                 .isInstanceOf(NotFoundException.class)
                 .hasMessageContaining("File not found");
+
+        assertThat(fileManagementService.getFilesByCustomer("testcustomer"))
+                .as("Deleted file should no longer be listed by customer index")
+                .doesNotContain(expectedJsonName);
+
+        for (Path indexDirectory : List.of(
+                storageRoot.resolve(CUSTOMER_INDEX_NAME).resolve("testcustomer"),
+                storageRoot.resolve(TYPE_INDEX_NAME).resolve("docs"),
+                storageRoot.resolve(DATE_INDEX_NAME).resolve("2025-12-16"))) {
+            assertThat(Files.exists(indexDirectory.resolve(expectedJsonName), LinkOption.NOFOLLOW_LINKS))
+                    .as("Index link in %s should be removed after delete()", indexDirectory)
+                    .isFalse();
+        }
     }
 
     @Test
@@ -291,6 +1023,97 @@ public class FileManagementServiceTest {
                 .hasMessageContaining("File not found");
     }
 
+    @Test
+    @DisplayName("Verify: uploadBatch stores valid files and reports a status per file")
+    void uploadBatch_shouldReportStatusPerFile() throws Exception {
+        // Given
+        fileManagementService.upload(multipartXml("existing_docs_2025-12-01.xml"));
+        List<MockMultipartFile> files = List.of(
+                createMultipartFileFromResource(XML_FILE_NAME),
+                multipartXml("testcustomer_report_2025-12-17.xml"),
+                multipartXml("testcustomer_report_2025-12-17.xml"),
+                multipartXml("existing_docs_2025-12-01.xml"),
+                multipartXml("invalid-name.xml")
+        );
+
+        // When
+        BatchUploadReport report = fileManagementService.uploadBatch(List.copyOf(files));
+
+        // Then
+        assertThat(report.files())
+                .as("Every file should get its own status in request order")
+                .extracting(FileUploadStatus::status)
+                .containsExactly(201, 201, 409, 409, 400);
+        assertThat(report.succeeded()).isEqualTo(2);
+        assertThat(report.failed()).isEqualTo(3);
+        assertThat(fileManagementService.getFilesByCustomer("testcustomer"))
+                .as("Stored batch files should be indexed")
+                .containsExactly(JSON_FILE_NAME, "testcustomer_report_2025-12-17.json");
+    }
+
+    @Test
+    @DisplayName("Verify: export streams every matching file as a zip entry and as an NDJSON line")
+    void export_shouldStreamMatchingFilesAsZipAndNdjson() throws Exception {
+        // Given
+        fileManagementService.upload(multipartXml("exportcustomer_docs_2025-12-01.xml"));
+        fileManagementService.upload(multipartXml("exportcustomer_report_2025-12-02.xml"));
+        fileManagementService.upload(multipartXml("othercustomer_docs_2025-12-01.xml"));
+        FileExportService exportService = new FileExportService(fileManagementService, jsonMapper,
+                new FileOperationMetrics(meterRegistry));
+        FileQuery query = FileQuery.of("exportcustomer", null, null, null);
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+
+        // When
+        final int zipped = exportService.writeZip(exportService.matchingFiles(query), zip);
+        final int written = exportService.writeNdjson(exportService.matchingFiles(query), ndjson);
+
+        // Then
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zipInput = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+            for (ZipEntry entry = zipInput.getNextEntry(); entry != null; entry = zipInput.getNextEntry()) {
+                entries.add(entry.getName());
+                assertThat(jsonMapper.readTree(zipInput.readAllBytes()).path("value").asText())
+                        .isEqualTo(entry.getName().replace(JSON_EXTENSION, XML_EXTENSION));
+            }
+        }
+        assertThat(zipped).isEqualTo(2);
+        assertThat(entries).containsExactly("exportcustomer_docs_2025-12-01.json",
+                "exportcustomer_report_2025-12-02.json");
+
+        List<String> lines = ndjson.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(written).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        JsonNode first = jsonMapper.readTree(lines.get(0));
+        assertThat(first.path("fileName").asText()).isEqualTo("exportcustomer_docs_2025-12-01.json");
+        assertThat(first.path("content").path("value").asText()).isEqualTo("exportcustomer_docs_2025-12-01.xml");
+    }
+
+    private FileManagementService createService(StorageProperties properties) {
+        FileIndex fileIndex = new FileIndex(new IndexJournal(properties));
+        return createService(properties, fileIndex,
+                new IndexLinks(properties, new StorageLayout(properties), fileIndex));
+    }
+
+    private FileManagementService createService(StorageProperties properties, FileIndex fileIndex,
+                                                IndexLinks indexLinks) {
+        ObjectMapper indentingMapper = jsonMapper.copy().enable(SerializationFeature.INDENT_OUTPUT);
+        return new FileManagementService(
+                properties,
+                new StreamingXmlJsonConverter(new XmlMapper(), indentingMapper),
+                fileIndex,
+                ForkJoinPool.commonPool(),
+                new ContentDigestStore(),
+                new StorageLayout(properties),
+                indexLinks,
+                new BlobStore(properties),
+                new DocumentCache(properties),
+                new ChangeLog(properties, indentingMapper),
+                new FileLockManager(),
+                new FileOperationMetrics(meterRegistry)
+        );
+    }
+
     private MockMultipartFile createMultipartFileFromResource() throws IOException {
         String testFileName = "testcustomer_docs_2025-12-16.xml";
 
@@ -350,6 +1173,16 @@ public class FileManagementServiceTest {
                 .satisfies(Files::isDirectory);
     }
 
+    private static List<Path> blobFiles(Path blobRoot) throws IOException {
+        try (Stream<Path> files = Files.walk(blobRoot)) {
+            return files.filter(path -> Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)).toList();
+        }
+    }
+
+    private static InputStream xmlBody(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
     private MockMultipartFile multipartXml(String fileName) {
         String xml = "<root><value>" + fileName + "</value></root>";
         return new MockMultipartFile("file", fileName, "application/xml", xml.getBytes());
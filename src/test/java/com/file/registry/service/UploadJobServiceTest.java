@@ -0,0 +1,215 @@
+package com.file.registry.service;
+
+import static com.file.registry.constants.TestApplicationConstants.JSON_FILE_NAME;
+import static com.file.registry.constants.TestApplicationConstants.XML_FILE_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.file.registry.cache.DocumentCache;
+import com.file.registry.converter.StreamingXmlJsonConverter;
+import com.file.registry.dto.UploadJob;
+import com.file.registry.exception.TooManyRequestsException;
+import com.file.registry.history.ChangeLog;
+import com.file.registry.index.FileIndex;
+import com.file.registry.index.IndexJournal;
+import com.file.registry.metrics.FileOperationMetrics;
+import com.file.registry.properties.StorageProperties;
+import com.file.registry.storage.BlobStore;
+import com.file.registry.storage.ContentDigestStore;
+import com.file.registry.storage.FileLockManager;
+import com.file.registry.storage.IndexLinks;
+import com.file.registry.storage.StorageLayout;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+public class UploadJobServiceTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @TempDir
+    private Path storageDir;
+
+    private StorageProperties storageProperties;
+    private FileManagementService fileManagementService;
+    private ThreadPoolExecutor uploadJobExecutor;
+    private UploadJobService uploadJobService;
+
+    @BeforeEach
+    void setUp() {
+        storageProperties = new StorageProperties(storageDir.toString());
+        FileIndex fileIndex = new FileIndex(new IndexJournal(storageProperties));
+        StorageLayout storageLayout = new StorageLayout(storageProperties);
+        fileManagementService = new FileManagementService(
+                storageProperties,
+                new StreamingXmlJsonConverter(new XmlMapper(), new ObjectMapper()),
+                fileIndex,
+                ForkJoinPool.commonPool(),
+                new ContentDigestStore(),
+                storageLayout,
+                new IndexLinks(storageProperties, storageLayout, fileIndex),
+                new BlobStore(storageProperties),
+                new DocumentCache(storageProperties),
+                new ChangeLog(storageProperties, new ObjectMapper()),
+                new FileLockManager(),
+                new FileOperationMetrics(new SimpleMeterRegistry())
+        );
+        uploadJobExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                new ThreadPoolExecutor.AbortPolicy());
+        uploadJobService = new UploadJobService(storageProperties, fileManagementService, uploadJobExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadJobExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Verify: submitted upload is queued, then converted and reported as succeeded")
+    void submitUpload_shouldStoreFileInBackground() throws Exception {
+        // When
+        UploadJob queued = uploadJobService.submit(multipartXml(XML_FILE_NAME), UploadJob.Type.UPLOAD);
+        UploadJob finished = awaitFinished(queued.id());
+
+        // Then
+        assertThat(queued.status()).isEqualTo(UploadJob.Status.QUEUED);
+        assertThat(finished.status()).isEqualTo(UploadJob.Status.SUCCEEDED);
+        assertThat(storageDir.resolve(JSON_FILE_NAME)).exists();
+        assertThat(storageDir.resolve(UploadJobService.INCOMING_DIRECTORY).resolve("upload"))
+                .as("Processed uploads should be removed from the incoming directory")
+                .isEmptyDirectory();
+    }
+
+    @Test
+    @DisplayName("Verify: failed job reports the status the synchronous call would have returned")
+    void submitDuplicateUpload_shouldReportConflict() throws Exception {
+        // Given
+        fileManagementService.upload(multipartXml(XML_FILE_NAME));
+
+        // When
+        UploadJob queued = uploadJobService.submit(multipartXml(XML_FILE_NAME), UploadJob.Type.UPLOAD);
+        UploadJob finished = awaitFinished(queued.id());
+
+        // Then
+        assertThat(finished.status()).isEqualTo(UploadJob.Status.FAILED);
+        assertThat(finished.errorStatus()).isEqualTo(409);
+    }
+
+    @Test
+    @DisplayName("Verify: submit is rejected with 429 once the job queue is full")
+    void submit_whenQueueFull_shouldThrowTooManyRequests() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        uploadJobExecutor.execute(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        started.await();
+        UploadJob queued = uploadJobService.submit(multipartXml(XML_FILE_NAME), UploadJob.Type.UPLOAD);
+
+        // When / Then
+        try {
+            assertThatThrownBy(() -> uploadJobService.submit(multipartXml("acme_invoice_2025-01-01.xml"),
+                    UploadJob.Type.UPLOAD))
+                    .isInstanceOf(TooManyRequestsException.class);
+        } finally {
+            release.countDown();
+        }
+        assertThat(awaitFinished(queued.id()).status()).isEqualTo(UploadJob.Status.SUCCEEDED);
+    }
+
+    @Test
+    @DisplayName("Verify: uploads persisted by a previous run are resumed under their job id")
+    void resumePendingJobs_shouldProcessPersistedUploads() throws Exception {
+        // Given
+        Path jobDirectory = storageDir.resolve(UploadJobService.INCOMING_DIRECTORY).resolve("upload").resolve("job-1");
+        Files.createDirectories(jobDirectory);
+        Files.write(jobDirectory.resolve(XML_FILE_NAME), multipartXml(XML_FILE_NAME).getBytes());
+
+        // When
+        int resumed = uploadJobService.resumePendingJobs();
+        UploadJob finished = awaitFinished("job-1");
+
+        // Then
+        assertThat(resumed).isEqualTo(1);
+        assertThat(finished.status()).isEqualTo(UploadJob.Status.SUCCEEDED);
+        assertThat(storageDir.resolve(JSON_FILE_NAME)).exists();
+        assertThat(jobDirectory).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Verify: updates of the same file run in the order they were accepted")
+    void submitUpdates_sameFileName_shouldApplyInOrder() throws Exception {
+        // Given
+        ThreadPoolExecutor parallelExecutor = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(100), new ThreadPoolExecutor.AbortPolicy());
+        UploadJobService parallelService = new UploadJobService(storageProperties, fileManagementService,
+                parallelExecutor);
+        fileManagementService.upload(multipartXml(XML_FILE_NAME));
+        List<String> jobIds = new ArrayList<>();
+
+        // When
+        try {
+            for (int value = 2; value <= 30; value++) {
+                jobIds.add(parallelService.submit(multipartXml(XML_FILE_NAME, value), UploadJob.Type.UPDATE).id());
+            }
+            for (String jobId : jobIds) {
+                assertThat(awaitFinished(parallelService, jobId).status()).isEqualTo(UploadJob.Status.SUCCEEDED);
+            }
+        } finally {
+            parallelExecutor.shutdownNow();
+        }
+
+        // Then
+        assertThat(Files.readString(storageDir.resolve(JSON_FILE_NAME)))
+                .as("The last accepted update should be the stored content")
+                .contains("30");
+    }
+
+    private UploadJob awaitFinished(String jobId) throws InterruptedException {
+        return awaitFinished(uploadJobService, jobId);
+    }
+
+    private static UploadJob awaitFinished(UploadJobService service, String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        UploadJob job = service.getJob(jobId);
+        while (job.finishedAt() == null && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+            job = service.getJob(jobId);
+        }
+        return job;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static MockMultipartFile multipartXml(String fileName) {
+        return multipartXml(fileName, 1);
+    }
+
+    private static MockMultipartFile multipartXml(String fileName, int value) {
+        return new MockMultipartFile("file", fileName, "application/xml",
+                ("<root><value>" + value + "</value></root>").getBytes());
+    }
+}